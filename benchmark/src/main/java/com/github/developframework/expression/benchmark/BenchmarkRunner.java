@@ -0,0 +1,173 @@
+package com.github.developframework.expression.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 基准测试入口
+ * 使用GC profiler运行基准，并与保存的基线比较
+ * <p>
+ * 参数：
+ * <ul>
+ *     <li>--include &lt;regex&gt; 只运行匹配的基准</li>
+ *     <li>--baseline &lt;file&gt; 基线文件，默认 benchmark-baseline.csv</li>
+ *     <li>--save-baseline 将本次结果保存为基线</li>
+ *     <li>--threshold &lt;ratio&gt; 判定为退化的比例，默认 0.10</li>
+ * </ul>
+ * 任一基准的耗时或分配量超过基线阈值时以状态码1退出
+ *
+ * @author qiushui
+ */
+public final class BenchmarkRunner {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    private static final String HEADER = "benchmark,mode,score,unit,allocNorm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = BenchmarkRunner.class.getPackageName() + ".*Benchmark";
+        Path baselinePath = Paths.get("benchmark-baseline.csv");
+        boolean saveBaseline = false;
+        double threshold = 0.10d;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--include":
+                    include = args[++i];
+                    break;
+                case "--baseline":
+                    baselinePath = Paths.get(args[++i]);
+                    break;
+                case "--save-baseline":
+                    saveBaseline = true;
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class);
+        Map<String, Record> records = new LinkedHashMap<>();
+        for (RunResult runResult : new Runner(options.build()).run()) {
+            Record record = Record.of(runResult);
+            records.put(record.benchmark, record);
+        }
+        if (saveBaseline) {
+            List<String> lines = new ArrayList<>();
+            lines.add(HEADER);
+            records.values().forEach(record -> lines.add(record.toLine()));
+            Files.write(baselinePath, lines, StandardCharsets.UTF_8);
+            System.out.printf("Baseline saved to %s%n", baselinePath.toAbsolutePath());
+        } else if (Files.exists(baselinePath)) {
+            Map<String, Record> baseline = Files.readAllLines(baselinePath, StandardCharsets.UTF_8)
+                    .stream()
+                    .skip(1)
+                    .filter(line -> !line.isBlank())
+                    .map(Record::parse)
+                    .collect(Collectors.toMap(record -> record.benchmark, record -> record, (a, b) -> b, LinkedHashMap::new));
+            if (compare(baseline, records, threshold)) {
+                System.exit(1);
+            }
+        } else {
+            System.out.printf("No baseline at %s, run with --save-baseline to create one.%n", baselinePath.toAbsolutePath());
+        }
+    }
+
+    /**
+     * 与基线比较
+     *
+     * @return 是否存在退化
+     */
+    private static boolean compare(Map<String, Record> baseline, Map<String, Record> current, double threshold) {
+        boolean regressed = false;
+        System.out.printf("%n%-90s %14s %14s %9s %12s %12s%n", "Benchmark", "baseline", "current", "delta", "alloc(base)", "alloc(cur)");
+        for (Record record : current.values()) {
+            Record base = baseline.get(record.benchmark);
+            if (base == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %12s %12.1f%n", record.benchmark, "-", record.score, "new", "-", record.allocNorm);
+                continue;
+            }
+            // 吞吐模式分数越高越好，其余模式越低越好
+            double delta = (record.score - base.score) / base.score;
+            double worse = record.mode == Mode.Throughput ? -delta : delta;
+            boolean allocRegressed = record.allocNorm > base.allocNorm * (1 + threshold) + 1;
+            boolean flagged = worse > threshold || allocRegressed;
+            regressed |= flagged;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %12.1f %12.1f%s%n",
+                    record.benchmark, base.score, record.score, delta * 100, base.allocNorm, record.allocNorm, flagged ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    /**
+     * 单个基准结果
+     */
+    private static final class Record {
+
+        private final String benchmark;
+
+        private final Mode mode;
+
+        private final double score;
+
+        private final String unit;
+
+        /* 每次操作分配的字节数 */
+        private final double allocNorm;
+
+        private Record(String benchmark, Mode mode, double score, String unit, double allocNorm) {
+            this.benchmark = benchmark;
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+            this.allocNorm = allocNorm;
+        }
+
+        private static Record of(RunResult runResult) {
+            BenchmarkParams params = runResult.getParams();
+            String benchmark = params.getBenchmark() + params.getParamsKeys()
+                    .stream()
+                    .map(key -> key + "=" + params.getParam(key))
+                    .collect(Collectors.joining(";", "[", "]"));
+            Result<?> primary = runResult.getPrimaryResult();
+            double allocNorm = runResult.getSecondaryResults()
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> entry.getKey().endsWith(ALLOC_NORM))
+                    .mapToDouble(entry -> entry.getValue().getScore())
+                    .findFirst()
+                    .orElse(Double.NaN);
+            return new Record(benchmark, params.getMode(), primary.getScore(), primary.getScoreUnit(), allocNorm);
+        }
+
+        private static Record parse(String line) {
+            String[] parts = line.split(",");
+            return new Record(parts[0], Mode.deepValueOf(parts[1]), Double.parseDouble(parts[2]), parts[3], Double.parseDouble(parts[4]));
+        }
+
+        private String toLine() {
+            return String.join(",", benchmark, mode.shortLabel(), Double.toString(score), unit, Double.toString(allocNorm));
+        }
+    }
+}
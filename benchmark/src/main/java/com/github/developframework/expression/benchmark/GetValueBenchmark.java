@@ -0,0 +1,62 @@
+package com.github.developframework.expression.benchmark;
+
+import com.github.developframework.expression.CompiledExpression;
+import com.github.developframework.expression.Expression;
+import com.github.developframework.expression.ExpressionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 取值基准，覆盖对象、Map、List、数组、Set以及带参数的方法调用
+ *
+ * @author qiushui
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetValueBenchmark {
+
+    @Param({
+            "users[3].address.city",
+            "user.name",
+            "users[5].name",
+            "array[2].emails[1]",
+            "users[0].tags[2]",
+            "users[1].say()",
+            "users[1].greet(name,age)"
+    })
+    public String expressionValue;
+
+    private Map<String, Object> root;
+
+    private Expression expression;
+
+    private CompiledExpression compiledExpression;
+
+    @Setup
+    public void setup() {
+        root = Model.root();
+        expression = Expression.parse(expressionValue);
+        compiledExpression = expression.compile();
+    }
+
+    @Benchmark
+    public Object interpreted() {
+        return ExpressionUtils.getValue(root, expression);
+    }
+
+    @Benchmark
+    public Object string() {
+        return ExpressionUtils.getValue(root, expressionValue);
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return compiledExpression.getValue(root);
+    }
+}
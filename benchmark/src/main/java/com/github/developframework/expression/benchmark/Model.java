@@ -0,0 +1,104 @@
+package com.github.developframework.expression.benchmark;
+
+import java.util.*;
+
+/**
+ * 基准测试使用的数据模型
+ *
+ * @author qiushui
+ */
+public final class Model {
+
+    private Model() {
+    }
+
+    public static User user(String name, int age) {
+        Address address = new Address("Hangzhou", "Xihu");
+        String[] emails = {name + "@163.com", name + "@qq.com"};
+        Set<String> tags = new HashSet<>(List.of("a", "b", "c", "d"));
+        return new User(name, age, address, emails, tags);
+    }
+
+    public static Map<String, Object> root() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            users.add(user("user" + i, 20 + i));
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("user", Map.of("name", "peter"));
+        data.put("users", users);
+        data.put("array", users.toArray(User[]::new));
+        data.put("name", "tom");
+        data.put("age", 18);
+        return data;
+    }
+
+    public static class User {
+
+        private final String name;
+
+        private final int age;
+
+        private final Address address;
+
+        private final String[] emails;
+
+        private final Set<String> tags;
+
+        public User(String name, int age, Address address, String[] emails, Set<String> tags) {
+            this.name = name;
+            this.age = age;
+            this.address = address;
+            this.emails = emails;
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public String[] getEmails() {
+            return emails;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public String say() {
+            return "Hi";
+        }
+
+        public String greet(String other, Integer otherAge) {
+            return otherAge > age ? other : name;
+        }
+    }
+
+    public static class Address {
+
+        private final String city;
+
+        private final String district;
+
+        public Address(String city, String district) {
+            this.city = city;
+            this.district = district;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getDistrict() {
+            return district;
+        }
+    }
+}
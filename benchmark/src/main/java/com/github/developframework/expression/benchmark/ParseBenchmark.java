@@ -0,0 +1,40 @@
+package com.github.developframework.expression.benchmark;
+
+import com.github.developframework.expression.Expression;
+import com.github.developframework.expression.ExpressionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表达式解析基准
+ *
+ * @author qiushui
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({
+            "user.name",
+            "users[0].emails[1]",
+            "matrix[0][1][2]",
+            "users[0].greet(name,age)",
+            "a.b.c.d.e.f.g.h.i.j"
+    })
+    public String expressionValue;
+
+    @Benchmark
+    public Expression parse() {
+        return Expression.parse(expressionValue);
+    }
+
+    @Benchmark
+    public Expression parseCached() {
+        return ExpressionUtils.getExpressionCache().get(expressionValue);
+    }
+}
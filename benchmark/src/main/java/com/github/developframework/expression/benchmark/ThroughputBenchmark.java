@@ -0,0 +1,45 @@
+package com.github.developframework.expression.benchmark;
+
+import com.github.developframework.expression.CompiledExpression;
+import com.github.developframework.expression.ExpressionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程吞吐基准，所有线程共享解析缓存、访问器缓存和编译结果
+ *
+ * @author qiushui
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+
+    private static final String EXPRESSION_VALUE = "users[3].address.city";
+
+    private Map<String, Object> root;
+
+    private CompiledExpression compiledExpression;
+
+    @Setup
+    public void setup() {
+        root = Model.root();
+        compiledExpression = ExpressionUtils.compile(EXPRESSION_VALUE);
+    }
+
+    @Benchmark
+    public Object string() {
+        return ExpressionUtils.getValue(root, EXPRESSION_VALUE);
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return compiledExpression.getValue(root);
+    }
+}
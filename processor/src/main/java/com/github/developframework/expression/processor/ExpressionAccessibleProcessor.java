@@ -0,0 +1,352 @@
+package com.github.developframework.expression.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 属性访问器表注解处理器
+ * 为标注了@ExpressionAccessible的类型在同一个包下生成PropertyAccessorTable实现，并登记到
+ * META-INF/services/com.github.developframework.expression.PropertyAccessorTable
+ * <p>
+ * 属性的确定方式与运行时的反射解析一致：以类型及其父类声明的非静态字段为属性，优先使用getter/setter方法，
+ * 不存在时直接读写字段；生成类访问不到的成员（私有或其他包的非公有成员）不登记，运行时仍通过反射解析
+ * int、long、double属性以registerInt/registerLong/registerDouble登记，读写不经过装箱；其它原始类型属性的读写经过装箱
+ * <p>
+ * 处理器只写入META-INF/services，以模块方式运行时ServiceLoader不读取该文件：
+ * 具名模块中的类型需要在module-info.java中自行声明provides，否则运行时静默回退到反射解析，处理器对此给出警告
+ *
+ * @author qiushui
+ */
+@SupportedAnnotationTypes(ExpressionAccessibleProcessor.ANNOTATION)
+public class ExpressionAccessibleProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.github.developframework.expression.ExpressionAccessible";
+
+    static final String SERVICE = "com.github.developframework.expression.PropertyAccessorTable";
+
+    static final String SUFFIX = "_ExpressionAccessors";
+
+    /* 原始类型 -> 不经过装箱的登记方法 */
+    private static final Map<String, String> PRIMITIVE_REGISTERS = Map.of("int", "registerInt", "long", "registerLong", "double", "registerDouble");
+
+    /* 已生成的访问器表类名 */
+    private final Set<String> tableNames = new TreeSet<>();
+
+    private Elements elements;
+
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@ExpressionAccessible can only be applied to classes");
+                } else if (!isAccessible((TypeElement) element)) {
+                    error(element, "@ExpressionAccessible type \"%s\" must not be private", element);
+                } else {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        final String simpleName = flatName(type) + SUFFIX;
+        final String tableName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        final String owner = type.getQualifiedName().toString();
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(tableName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                writer.printf("package %s;%n%n", packageName);
+            }
+            writer.printf("/**%n * Property accessor table of {@link %s}, generated by %s, do not edit.%n */%n", owner, getClass().getName());
+            writer.printf("public final class %s implements %s {%n%n", simpleName, SERVICE);
+            writer.printf("    @Override%n    public Class<?> getType() {%n        return %s.class;%n    }%n%n", owner);
+            writer.printf("    @Override%n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})%n    public void registerAccessors(Registry registry) {%n");
+            for (Property property : collectProperties(type)) {
+                final String setter = property.setter == null ? "null" : "(o, v) -> ((" + owner + ") o)." + property.setter;
+                final String primitiveMethod = PRIMITIVE_REGISTERS.get(property.typeLiteral);
+                if (primitiveMethod != null) {
+                    writer.printf("        registry.%s(\"%s\", o -> ((%s) o).%s, %s);%n", primitiveMethod, property.name, owner, property.getter, setter);
+                } else {
+                    writer.printf("        registry.register(\"%s\", %s.class, o -> ((%s) o).%s, %s);%n", property.name, property.typeLiteral, owner, property.getter, setter);
+                }
+            }
+            writer.printf("    }%n}%n");
+        } catch (IOException e) {
+            error(type, "generate accessor table \"%s\" failed: %s", tableName, e.getMessage());
+            return;
+        }
+        tableNames.add(tableName);
+        checkModule(type, tableName);
+    }
+
+    /**
+     * 具名模块中的类型没有声明provides时给出警告
+     *
+     * @param type      类型
+     * @param tableName 访问器表类名
+     */
+    private void checkModule(TypeElement type, String tableName) {
+        final ModuleElement module = elements.getModuleOf(type);
+        if (module == null || module.isUnnamed()) {
+            return;
+        }
+        for (ModuleElement.ProvidesDirective provides : ElementFilter.providesIn(module.getDirectives())) {
+            if (provides.getService().getQualifiedName().contentEquals(SERVICE)) {
+                for (TypeElement implementation : provides.getImplementations()) {
+                    if (implementation.getQualifiedName().contentEquals(tableName)) {
+                        return;
+                    }
+                }
+            }
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format(
+                "Module \"%s\" must declare \"provides %s with %s;\", otherwise the accessor table is not found by ServiceLoader and properties of \"%s\" are resolved by reflection",
+                module.getQualifiedName(), SERVICE, tableName, type.getQualifiedName()), type);
+    }
+
+    /**
+     * 收集属性，子类字段遮蔽父类的同名字段
+     *
+     * @param type 类型
+     * @return 属性列表
+     */
+    private List<Property> collectProperties(TypeElement type) {
+        final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        final List<Property> properties = new ArrayList<>();
+        final Set<String> seen = new HashSet<>();
+        final DeclaredType owner = (DeclaredType) types.erasure(type.asType());
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+        for (TypeElement current = type; current != null && !current.getQualifiedName().contentEquals("java.lang.Object"); current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC) || !seen.add(field.getSimpleName().toString())) {
+                    continue;
+                }
+                final Property property = resolve(owner, field, methods, packageName);
+                if (property != null) {
+                    properties.add(property);
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 解析属性，类型以从生成类中看到的成员类型为准，例如继承自Box&lt;Integer&gt;的T value字段类型为Integer
+     *
+     * @param owner       类型（原始类型）
+     * @param field       字段
+     * @param methods     全部方法
+     * @param packageName 生成类所在包
+     * @return 属性，生成类访问不到时返回null
+     */
+    private Property resolve(DeclaredType owner, VariableElement field, List<ExecutableElement> methods, String packageName) {
+        final String fieldName = field.getSimpleName().toString();
+        final TypeMirror fieldType = types.erasure(field.asType());
+        final TypeMirror memberFieldType = types.erasure(types.asMemberOf(owner, field));
+        final boolean isBoolean = fieldType.getKind() == TypeKind.BOOLEAN || fieldType.toString().equals("java.lang.Boolean");
+        final String getterName = (isBoolean ? "is" : "get") + capitalize(fieldName);
+        final String setterName = "set" + capitalize(fieldName);
+        final boolean fieldAccessible = isAccessible(field, packageName);
+        final Property property = new Property(fieldName);
+        final ExecutableElement getter = findMethod(methods, getterName, null, packageName);
+        final TypeMirror propertyType;
+        if (getter != null) {
+            propertyType = types.erasure(((ExecutableType) types.asMemberOf(owner, getter)).getReturnType());
+            property.getter = getterName + "()";
+        } else if (fieldAccessible) {
+            propertyType = memberFieldType;
+            property.getter = fieldName;
+        } else {
+            return null;
+        }
+        property.typeLiteral = typeLiteral(propertyType);
+        final ExecutableElement setter = findMethod(methods, setterName, fieldType, packageName);
+        if (setter != null) {
+            final TypeMirror parameterType = types.erasure(((ExecutableType) types.asMemberOf(owner, setter)).getParameterTypes().get(0));
+            property.setter = setterName + "(" + castValue(parameterType, propertyType) + ")";
+        } else if (fieldAccessible && !field.getModifiers().contains(Modifier.FINAL)) {
+            property.setter = fieldName + " = " + castValue(memberFieldType, propertyType);
+        }
+        return property;
+    }
+
+    /**
+     * 查找可访问的非静态方法
+     *
+     * @param methods       全部方法
+     * @param name          方法名称
+     * @param parameterType 参数类型，为null时查找无参方法
+     * @param packageName   生成类所在包
+     * @return 方法，不存在时返回null
+     */
+    private ExecutableElement findMethod(List<ExecutableElement> methods, String name, TypeMirror parameterType, String packageName) {
+        for (ExecutableElement method : methods) {
+            if (!method.getSimpleName().contentEquals(name) || method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method, packageName)) {
+                continue;
+            }
+            final List<? extends VariableElement> parameters = method.getParameters();
+            if (parameterType == null ? parameters.isEmpty() && method.getReturnType().getKind() != TypeKind.VOID
+                    : parameters.size() == 1 && types.isSameType(types.erasure(parameters.get(0).asType()), parameterType)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写入函数的值参数类型为属性类型（原始类型为其包装类型），与写入目标类型不同时转换
+     *
+     * @param targetType   写入目标类型
+     * @param propertyType 属性类型
+     * @return 写入值表达式
+     */
+    private String castValue(TypeMirror targetType, TypeMirror propertyType) {
+        return types.isSameType(targetType, propertyType) ? "v" : "(" + typeLiteral(targetType) + ") v";
+    }
+
+    private boolean isAccessible(Element member, String packageName) {
+        final Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) && elements.getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private String typeLiteral(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeLiteral(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            default:
+                return type.toString();
+        }
+    }
+
+    private String flatName(TypeElement type) {
+        final Element enclosing = type.getEnclosingElement();
+        return enclosing instanceof TypeElement ? flatName((TypeElement) enclosing) + "_" + type.getSimpleName() : type.getSimpleName().toString();
+    }
+
+    private static String capitalize(String property) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(property);
+        if (Character.isLowerCase(sb.charAt(0))) {
+            if (sb.length() == 1 || !Character.isUpperCase(sb.charAt(1))) {
+                sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 写入服务登记文件，合并增量编译时已存在的条目
+     */
+    private void writeServiceFile() {
+        if (tableNames.isEmpty()) {
+            return;
+        }
+        final String path = "META-INF/services/" + SERVICE;
+        final Filer filer = processingEnv.getFiler();
+        final Set<String> names = new TreeSet<>(tableNames);
+        try {
+            final FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", path);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        names.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 服务登记文件不存在
+        }
+        try (Writer writer = new OutputStreamWriter(filer.createResource(StandardLocation.CLASS_OUTPUT, "", path).openOutputStream(), StandardCharsets.UTF_8)) {
+            for (String name : names) {
+                writer.write(name);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("write \"%s\" failed: %s", path, e.getMessage()));
+        }
+        tableNames.clear();
+    }
+
+    private void error(Element element, String format, Object... objs) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, objs), element);
+    }
+
+    /**
+     * 属性
+     */
+    private static final class Property {
+
+        private final String name;
+
+        /* 属性类型的类字面量 */
+        private String typeLiteral;
+
+        /* 读取表达式 */
+        private String getter;
+
+        /* 写入表达式，不可写时为null */
+        private String setter;
+
+        private Property(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package test;
+
+import com.github.developframework.expression.ExpressionUtils;
+import com.github.developframework.expression.PropertyAccessorTable;
+import com.github.developframework.expression.processor.ExpressionAccessibleProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 以注解处理器编译示例类型，调用生成的访问器表
+ *
+ * @author qiushui
+ */
+public class JunitTest {
+
+    private static final String POINT = "package sample;\n"
+            + "\n"
+            + "@com.github.developframework.expression.ExpressionAccessible\n"
+            + "public class Point {\n"
+            + "    private int x;\n"
+            + "    private long id;\n"
+            + "    private double ratio;\n"
+            + "    private boolean visible;\n"
+            + "    private String name;\n"
+            + "    public final String label = \"p\";\n"
+            + "    public int getX() { return x; }\n"
+            + "    public void setX(int x) { this.x = x; }\n"
+            + "    public long getId() { return id; }\n"
+            + "    public void setId(long id) { this.id = id; }\n"
+            + "    public double getRatio() { return ratio; }\n"
+            + "    public void setRatio(double ratio) { this.ratio = ratio; }\n"
+            + "    public boolean isVisible() { return visible; }\n"
+            + "    public void setVisible(boolean visible) { this.visible = visible; }\n"
+            + "    public String getName() { return name; }\n"
+            + "    public void setName(String name) { this.name = name; }\n"
+            + "}\n";
+
+    @Test
+    public void testGeneratedTable() throws Exception {
+        final Path directory = Files.createTempDirectory("processor");
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile(directory, "sample/Point.java", POINT);
+        Assert.assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().stream().noneMatch(d -> d.getKind() == Diagnostic.Kind.ERROR));
+        // 原始类型属性以不装箱的方法登记
+        final String source = Files.readString(directory.resolve("sample/Point_ExpressionAccessors.java"));
+        Assert.assertTrue(source, source.contains("registry.registerInt(\"x\""));
+        Assert.assertTrue(source, source.contains("registry.registerLong(\"id\""));
+        Assert.assertTrue(source, source.contains("registry.registerDouble(\"ratio\""));
+        Assert.assertTrue(source, source.contains("registry.register(\"visible\", boolean.class"));
+        Assert.assertTrue(source, source.contains("registry.register(\"label\", java.lang.String.class, o -> ((sample.Point) o).label, null)"));
+        Assert.assertEquals("sample.Point_ExpressionAccessors", Files.readString(directory.resolve("META-INF/services/" + PropertyAccessorTable.class.getName())).trim());
+        try (URLClassLoader loader = new URLClassLoader(new java.net.URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            final PropertyAccessorTable table = ServiceLoader.load(PropertyAccessorTable.class, loader).findFirst().orElseThrow();
+            final Class<?> pointClass = loader.loadClass("sample.Point");
+            Assert.assertSame(pointClass, table.getType());
+            ExpressionUtils.registerAccessorTable(table);
+            final Object point = pointClass.getConstructor().newInstance();
+            ExpressionUtils.setValue(point, "x", 3);
+            ExpressionUtils.setValue(point, "id", 4L);
+            ExpressionUtils.setValue(point, "ratio", 0.5);
+            ExpressionUtils.setValue(point, "visible", true);
+            ExpressionUtils.setValue(point, "name", "a");
+            Assert.assertEquals(3, ExpressionUtils.getInt(point, "x"));
+            Assert.assertEquals(4L, ExpressionUtils.getLong(point, "id"));
+            Assert.assertEquals(0.5, ExpressionUtils.getDouble(point, "ratio"), 0);
+            Assert.assertTrue(ExpressionUtils.getBoolean(point, "visible"));
+            Assert.assertEquals(3, ExpressionUtils.getValue(point, "x"));
+            Assert.assertEquals("a", ExpressionUtils.getValue(point, "name"));
+            Assert.assertEquals("p", ExpressionUtils.getValue(point, "label"));
+        }
+    }
+
+    @Test
+    public void testNamedModuleWarning() throws Exception {
+        final Path directory = Files.createTempDirectory("processor");
+        final String moduleInfo = "module sample {\n    requires expression;\n}\n";
+        final DiagnosticCollector<JavaFileObject> diagnostics = compile(directory, "module-info.java", moduleInfo, "sample/Point.java", POINT);
+        Assert.assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().stream()
+                .anyMatch(d -> d.getKind() == Diagnostic.Kind.WARNING && d.getMessage(null).contains("must declare \"provides")));
+    }
+
+    /**
+     * 以处理器编译源文件，输出到目录
+     *
+     * @param directory 输出目录
+     * @param sources   相对路径与源码交替
+     * @return 诊断信息
+     */
+    private static DiagnosticCollector<JavaFileObject> compile(Path directory, String... sources) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            final Path file = directory.resolve("src").resolve(sources[i]);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, sources[i + 1], StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        final String library = Paths.get(PropertyAccessorTable.class.getProtectionDomain().getCodeSource().getLocation().getPath()).toString();
+        final boolean modular = files.stream().anyMatch(file -> file.endsWith("module-info.java"));
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    List.of(modular ? "--module-path" : "-classpath", library, "-d", directory.toString(), "-s", directory.toString()),
+                    null,
+                    fileManager.getJavaFileObjectsFromPaths(files)
+            );
+            task.setProcessors(List.of(new ExpressionAccessibleProcessor()));
+            task.call();
+        }
+        return diagnostics;
+    }
+}
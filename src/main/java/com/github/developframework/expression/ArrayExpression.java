@@ -1,26 +1,40 @@
 package com.github.developframework.expression;
 
 import com.github.developframework.expression.exception.ExpressionParseException;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
 
 /**
  * 数组表达式
  * 示例： abc[i]
  * 支持多维数组 matrix[x][y][z]
+ * 支持通配 users[*]、matrix[*][*]，展开数组或集合的每个元素
+ * 支持过滤 items[?price > 100]，展开满足条件的元素，过滤索引同样记为{@link #WILDCARD}
+ * 支持负索引 list[-1]，从末尾计算
+ * 支持切片 list[2:5]、list[-3:]，结果是不复制元素的List视图，切片索引记为{@link #SLICE}
  *
  * @author qiushui
  */
 @Getter
 public class ArrayExpression extends Expression {
 
-    /* 索引 */
-    private final int[] indexArray;
+    /* 通配索引 [*] */
+    public static final int WILDCARD = Integer.MIN_VALUE;
+
+    /* 切片索引 [start:end] */
+    public static final int SLICE = Integer.MIN_VALUE + 1;
+
+    /* 索引，通配为{@link #WILDCARD}，切片为{@link #SLICE} */
+    final int[] indexArray;
+
+    /* 与索引对应的过滤谓词，不是过滤索引的位置为null，没有过滤索引时整体为null */
+    @Getter(AccessLevel.NONE)
+    final FilterPredicate[] filters;
+
+    /* 与索引对应的切片，不是切片索引的位置为null，没有切片索引时整体为null */
+    @Getter(AccessLevel.NONE)
+    final Slice[] slices;
 
     /**
      * 构造方法：根据表达式字符串创建数组表达式对象
@@ -28,34 +42,121 @@ public class ArrayExpression extends Expression {
      * @param expressionValue 表达式字符串
      */
     protected ArrayExpression(String expressionValue) {
-        if (!isArrayExpression(expressionValue)) {
+        final Expression expression = ExpressionParser.parseSegment(expressionValue);
+        if (!(expression instanceof ArrayExpression)) {
             throw new ExpressionParseException("The expression \"%s\" is not a array type expression.", expressionValue);
         }
-        this.expressionValue = expressionValue;
-        final int bracketStart = expressionValue.indexOf("[");
-        this.name = expressionValue.substring(0, bracketStart);
-        StringBuilder sb = new StringBuilder();
-        List<Integer> indexList = new LinkedList<>();
-        for (char c : expressionValue.substring(bracketStart).toCharArray()) {
-            switch (c) {
-                case '[':
-                    sb.setLength(0);
-                    break;
-                case ']':
-                    indexList.add(Integer.parseInt(sb.toString()));
-                    break;
-                default:
-                    sb.append(c);
-                    break;
+        this.expressionValue = expression.expressionValue;
+        this.name = expression.name;
+        this.indexArray = ((ArrayExpression) expression).indexArray;
+        this.filters = ((ArrayExpression) expression).filters;
+        this.slices = ((ArrayExpression) expression).slices;
+    }
+
+    protected ArrayExpression(String propertyName, int[] indexArray) {
+        final StringBuilder sb = new StringBuilder(propertyName);
+        for (int index : indexArray) {
+            if (index == WILDCARD) {
+                sb.append("[*]");
+            } else {
+                sb.append('[').append(index).append(']');
             }
         }
-        this.indexArray = indexList.stream().mapToInt(Integer::intValue).toArray();
+        this.expressionValue = sb.toString();
+        this.name = propertyName;
+        this.indexArray = indexArray;
+        this.filters = null;
+        this.slices = null;
     }
 
-    protected ArrayExpression(String propertyName, int[] indexArray) {
-        this.expressionValue = propertyName + IntStream.of(indexArray).mapToObj(i -> "[" + i + "]").collect(Collectors.joining());
+    /**
+     * 由解析器直接构建
+     *
+     * @param expressionValue 表达式字符串
+     * @param propertyName    属性名称
+     * @param indexArray      索引
+     * @param filters         与索引对应的过滤谓词，可以为null
+     * @param slices          与索引对应的切片，可以为null
+     */
+    ArrayExpression(String expressionValue, String propertyName, int[] indexArray, FilterPredicate[] filters, Slice[] slices) {
+        this.expressionValue = expressionValue;
         this.name = propertyName;
         this.indexArray = indexArray;
+        this.filters = filters;
+        this.slices = slices;
+    }
+
+    /**
+     * 返回索引
+     *
+     * @return 索引数组副本
+     */
+    public int[] getIndexArray() {
+        return indexArray.clone();
+    }
+
+    /**
+     * 判断本节点是否包含通配索引，整条路径的判断见{@link Expression#hasWildcard()}
+     */
+    boolean hasWildcardIndex() {
+        for (int index : indexArray) {
+            if (index == WILDCARD) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断是否包含过滤索引
+     */
+    public boolean hasFilter() {
+        return filters != null;
+    }
+
+    /**
+     * 返回第i个索引的过滤谓词
+     *
+     * @param i 索引位置
+     * @return 过滤谓词，不是过滤索引时返回null
+     */
+    FilterPredicate filterAt(int i) {
+        return filters == null ? null : filters[i];
+    }
+
+    /**
+     * 返回第i个索引的切片
+     *
+     * @param i 索引位置
+     * @return 切片，不是切片索引时返回null
+     */
+    Slice sliceAt(int i) {
+        return slices == null ? null : slices[i];
+    }
+
+    /**
+     * 返回只含第i个索引的无名数组节点，保留过滤谓词和切片，未规范化
+     *
+     * @param i 索引位置
+     * @return 数组节点
+     */
+    ArrayExpression indexNode(int i) {
+        final int index = indexArray[i];
+        final String value;
+        if (index == SLICE) {
+            value = slices[i].toString();
+        } else if (index == WILDCARD) {
+            value = filters != null && filters[i] != null ? "[?" + filters[i] + "]" : "[*]";
+        } else {
+            value = "[" + index + "]";
+        }
+        return new ArrayExpression(
+                value,
+                "",
+                new int[]{index},
+                filters == null || filters[i] == null ? null : new FilterPredicate[]{filters[i]},
+                slices == null || slices[i] == null ? null : new Slice[]{slices[i]}
+        );
     }
 
     /**
@@ -72,7 +173,7 @@ public class ArrayExpression extends Expression {
      * @return 检测结果
      */
     public static boolean isArrayExpression(String expressionValue) {
-        return expressionValue != null && expressionValue.matches("^\\w*(\\[\\d+])+$");
+        return ExpressionParser.parseSegment(expressionValue) instanceof ArrayExpression;
     }
 
     /**
@@ -83,8 +184,8 @@ public class ArrayExpression extends Expression {
      * @return 数组表达式
      */
     public static ArrayExpression fromObject(ObjectExpression objectExpression, int[] indexArray) {
-        ArrayExpression arrayExpression = new ArrayExpression(objectExpression.getName(), indexArray);
+        ArrayExpression arrayExpression = new ArrayExpression(objectExpression.getName(), indexArray.clone());
         arrayExpression.setParentExpression(objectExpression.getParentExpression());
-        return arrayExpression;
+        return intern(arrayExpression);
     }
 }
@@ -0,0 +1,143 @@
+package com.github.developframework.expression;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 异步求值器
+ * 方法节点可能是阻塞的延迟加载，按{@link EvaluationPlan}规划的槽位建立依赖：方法调用在执行器上执行，
+ * 接收者完成且不为null后，互不依赖的各个参数并发求值；方法返回{@link CompletionStage}时组合其结果而不阻塞等待
+ * 属性和索引节点开销很小，在前一个节点完成的线程上直接读取
+ * 槽位在首次被需要时才求值，接收者为null时参数不求值，null短路与同步求值一致；只含属性和索引的重复子表达式只计算一次
+ * 不含方法节点的表达式在当前线程同步求值；包含通配的接收者链或参数作为整体求值，其中的方法返回值不组合
+ * 默认执行器在运行时支持虚拟线程（JDK 21+）时为每个任务一个虚拟线程，否则为公共ForkJoinPool
+ *
+ * @author qiushui
+ */
+final class AsyncEvaluator {
+
+    /* 默认执行器 */
+    static final Executor DEFAULT_EXECUTOR = defaultExecutor();
+
+    /* 源表达式 */
+    private final Expression expression;
+
+    /* 槽位规划，没有方法节点时为null */
+    private final EvaluationPlan plan;
+
+    AsyncEvaluator(Expression expression) {
+        this.expression = expression;
+        this.plan = EvaluationPlan.hasMethod(expression) ? EvaluationPlan.plan(expression) : null;
+    }
+
+    /**
+     * 通过反射取得虚拟线程执行器，编译目标版本不含该API
+     */
+    private static Executor defaultExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    /**
+     * 异步求值
+     *
+     * @param instance 根对象
+     * @param executor 执行方法调用的执行器
+     * @return 值
+     */
+    CompletableFuture<Object> evaluate(Object instance, Executor executor) {
+        if (instance == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (plan == null) {
+            try {
+                return CompletableFuture.completedFuture(expression.compile().getValue(instance));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return new Evaluation(instance, executor).future(plan.slots.length - 1);
+    }
+
+    /**
+     * 一次求值，槽位的Future在首次被需要时创建
+     */
+    private final class Evaluation {
+
+        private final Object instance;
+
+        private final Executor executor;
+
+        private final CompletableFuture<Object> root;
+
+        private final AtomicReferenceArray<CompletableFuture<Object>> futures;
+
+        private Evaluation(Object instance, Executor executor) {
+            this.instance = instance;
+            this.executor = executor;
+            this.root = CompletableFuture.completedFuture(instance);
+            this.futures = new AtomicReferenceArray<>(plan.slots.length);
+        }
+
+        private CompletableFuture<Object> future(int index) {
+            if (index == EvaluationPlan.ROOT) {
+                return root;
+            }
+            final CompletableFuture<Object> existing = futures.get(index);
+            if (existing != null) {
+                return existing;
+            }
+            // 共享的槽位可能同时被多个方法的参数需要，只有登记成功的一方启动求值
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            if (!futures.compareAndSet(index, null, future)) {
+                return futures.get(index);
+            }
+            schedule(plan.slots[index]).whenComplete((value, e) -> {
+                if (e == null) {
+                    future.complete(value);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+
+        private CompletableFuture<Object> schedule(EvaluationPlan.Slot slot) {
+            final CompletableFuture<Object> parentFuture = future(slot.parent);
+            if (slot.arguments == null) {
+                final CompiledExpression step = slot.step.compile();
+                return slot.whole && EvaluationPlan.hasMethod(slot.node)
+                        ? parentFuture.thenApplyAsync(value -> step.evaluate(value, instance), executor)
+                        : parentFuture.thenApply(value -> step.evaluate(value, instance));
+            }
+            final MethodInvoker invoker = ((MethodExpression) slot.node).invoker;
+            return parentFuture.thenCompose(receiver -> {
+                if (receiver == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                final CompletableFuture<?>[] arguments = new CompletableFuture<?>[slot.arguments.length];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = future(slot.arguments[i]);
+                }
+                return CompletableFuture.allOf(arguments).thenComposeAsync(ignored -> invoke(invoker, receiver, arguments), executor);
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private CompletionStage<Object> invoke(MethodInvoker invoker, Object receiver, CompletableFuture<?>[] arguments) {
+            final Object[] values = new Object[arguments.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arguments[i].join();
+            }
+            final Object value = invoker.invoke(receiver, values);
+            return value instanceof CompletionStage ? (CompletionStage<Object>) value : CompletableFuture.completedFuture(value);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import lombok.Getter;
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.reflect.Type;
+
+/**
+ * 绑定了根类型的表达式
+ * 由{@link ExpressionUtils#bind(Type, Expression)}创建，创建时已按静态类型检查过每一个节点；
+ * 静态类型是final类时，该节点直接使用解析好的属性访问器，不再按运行时类型分派
+ *
+ * @author qiushui
+ */
+public final class BoundExpression {
+
+    /* 源表达式 */
+    @Getter
+    private final Expression expression;
+
+    /* 根类型 */
+    @Getter
+    private final Type rootType;
+
+    /* 值的静态类型，无法确定时为Object */
+    @Getter
+    private final Type valueType;
+
+    /* 根类型的原始类型 */
+    private final Class<?> rootClass;
+
+    private final CompiledExpression compiled;
+
+    BoundExpression(Expression expression, Type rootType, Type valueType, CompiledExpression compiled) {
+        this.expression = expression;
+        this.rootType = rootType;
+        this.valueType = valueType;
+        this.rootClass = ExpressionBinder.rawClass(rootType);
+        this.compiled = compiled;
+    }
+
+    /**
+     * 值的静态类型的原始类型
+     *
+     * @return 原始类型
+     */
+    public Class<?> getValueClass() {
+        return ExpressionBinder.rawClass(valueType);
+    }
+
+    /**
+     * 获取值
+     *
+     * @param instance 根对象
+     * @return 值
+     */
+    public Object getValue(Object instance) {
+        return compiled.getValue(checkRoot(instance));
+    }
+
+    /**
+     * 获取值
+     * 目标类型与值的静态类型互不兼容时直接失败，否则按运行时的值检查类型，原始类型按包装类型检查
+     *
+     * @param instance    根对象
+     * @param targetClass 目标类型
+     * @param <T>         值类型
+     * @return 值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(Object instance, Class<T> targetClass) {
+        final Class<?> valueClass = getValueClass();
+        if (!ClassUtils.isAssignable(valueClass, targetClass) && !ClassUtils.isAssignable(targetClass, valueClass)) {
+            throw new ExpressionException("The value type \"%s\" of expression \"%s\" is not compatible with \"%s\"", valueType.getTypeName(), expression, targetClass.getName());
+        }
+        final Object value = getValue(instance);
+        if (value != null && !ClassUtils.primitiveToWrapper(targetClass).isInstance(value)) {
+            throw new ExpressionException("The value type \"%s\" of expression \"%s\" is not \"%s\"", value.getClass().getName(), expression, targetClass.getName());
+        }
+        return (T) value;
+    }
+
+    public int getInt(Object instance) {
+        return compiled.getInt(checkRoot(instance));
+    }
+
+    public long getLong(Object instance) {
+        return compiled.getLong(checkRoot(instance));
+    }
+
+    public double getDouble(Object instance) {
+        return compiled.getDouble(checkRoot(instance));
+    }
+
+    public boolean getBoolean(Object instance) {
+        return compiled.getBoolean(checkRoot(instance));
+    }
+
+    private Object checkRoot(Object instance) {
+        if (instance != null && !rootClass.isInstance(instance)) {
+            throw new ExpressionException("The instance type \"%s\" is not the bound root type \"%s\" of expression \"%s\"", instance.getClass().getName(), rootType.getTypeName(), expression);
+        }
+        return instance;
+    }
+
+    @Override
+    public String toString() {
+        return expression + ": " + rootType.getTypeName() + " -> " + valueType.getTypeName();
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.developframework.expression;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 集合索引策略
+ * 负索引先按size()换算；RandomAccess的List直接按索引读取，其它List与Deque从较近的一端遍历，
+ * Deque的首尾元素直接以peekFirst/peekLast读取，
+ * 有序Set按自身顺序遍历，无序Set按{@link SetIndexStrategy}处理
+ *
+ * @author qiushui
+ */
+final class CollectionIndexer {
+
+    /* 快照槽位数，必须是2的幂 */
+    private static final int SNAPSHOT_SLOTS = 64;
+
+    private static final AtomicReferenceArray<Snapshot> SNAPSHOTS = new AtomicReferenceArray<>(SNAPSHOT_SLOTS);
+
+    private static volatile SetIndexStrategy setIndexStrategy = SetIndexStrategy.ITERATION_ORDER;
+
+    private CollectionIndexer() {
+    }
+
+    static SetIndexStrategy getSetIndexStrategy() {
+        return setIndexStrategy;
+    }
+
+    static void setSetIndexStrategy(SetIndexStrategy setIndexStrategy) {
+        CollectionIndexer.setIndexStrategy = setIndexStrategy;
+    }
+
+    /**
+     * 按索引取得集合中的元素
+     *
+     * @param collection 集合
+     * @param index      索引，负数从末尾计算
+     * @return 元素
+     */
+    @SuppressWarnings("rawtypes")
+    static Object getElement(Collection collection, int index) {
+        if (index >= 0 && collection instanceof List && collection instanceof RandomAccess) {
+            return ((List) collection).get(index);
+        }
+        final int size = collection.size();
+        if (index < 0) {
+            index += size;
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (collection instanceof List) {
+            final List list = (List) collection;
+            if (collection instanceof RandomAccess || index < size >> 1) {
+                return list.get(index);
+            }
+            final ListIterator iterator = list.listIterator(size);
+            for (int i = size - 1; i > index; i--) {
+                iterator.previous();
+            }
+            return iterator.previous();
+        }
+        if (collection instanceof Deque) {
+            if (index == 0) {
+                return ((Deque) collection).peekFirst();
+            } else if (index == size - 1) {
+                return ((Deque) collection).peekLast();
+            }
+            return index < size >> 1
+                    ? walk(collection.iterator(), index)
+                    : walk(((Deque) collection).descendingIterator(), size - 1 - index);
+        }
+        if (collection instanceof Set && !(collection instanceof SortedSet || collection instanceof LinkedHashSet) && setIndexStrategy == SetIndexStrategy.HASH_CODE_SNAPSHOT) {
+            return snapshot((Set) collection, size)[index];
+        }
+        return walk(collection.iterator(), index);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Object walk(Iterator iterator, int steps) {
+        for (int i = 0; i < steps; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * 取得按hashCode排序的快照，以Set的identity和size()为键缓存
+     *
+     * @param set  Set
+     * @param size 元素数量
+     * @return 快照
+     */
+    @SuppressWarnings("rawtypes")
+    private static Object[] snapshot(Set set, int size) {
+        final int slot = System.identityHashCode(set) & (SNAPSHOT_SLOTS - 1);
+        Snapshot snapshot = SNAPSHOTS.get(slot);
+        if (snapshot == null || snapshot.size != size || snapshot.setReference.get() != set) {
+            final Object[] elements = set.toArray();
+            Arrays.sort(elements, Comparator.comparingInt(Objects::hashCode));
+            snapshot = new Snapshot(set, elements);
+            SNAPSHOTS.set(slot, snapshot);
+        }
+        return snapshot.elements;
+    }
+
+    private static final class Snapshot {
+
+        private final WeakReference<Set<?>> setReference;
+
+        private final int size;
+
+        private final Object[] elements;
+
+        private Snapshot(Set<?> set, Object[] elements) {
+            this.setReference = new WeakReference<>(set);
+            this.size = elements.length;
+            this.elements = elements;
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 编译后的表达式
+ * 将表达式树组合成一条MethodHandle管道，遇到null时短路返回
+ * 属性访问节点使用按接收者类型守卫的内联缓存，便于JIT内联整条路径
+ * 守卫和已链接的访问器强引用接收者类型，卸载类加载器前通过{@link ExpressionUtils#clearCompiledState()}丢弃
+ *
+ * @author qiushui
+ */
+public final class CompiledExpression {
+
+    /* 内联缓存的最大多态深度，超过后退化为通用查找 */
+    static final int MAX_POLYMORPHIC_DEPTH = 4;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /* (Object value, Object root)Object */
+    private static final MethodType STEP_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodHandle IS_NULL;
+
+    private static final MethodHandle IS_CLASS;
+
+    private static final MethodHandle PROPERTY_FALLBACK;
+
+    private static final MethodHandle GENERIC_PROPERTY;
+
+    private static final MethodHandle GET_ELEMENT;
+
+    private static final MethodHandle INVOKE_METHOD;
+
+    private static final MethodHandle COLLECT_WILDCARD;
+
+    private static final MethodHandle IS_ROOT;
+
+    private static final MethodHandle EVALUATE_PLAN;
+
+    private static final MethodHandle APPLY_SLICE;
+
+    static {
+        try {
+            IS_NULL = MethodHandles.dropArguments(LOOKUP.findStatic(CompiledExpression.class, "isNull", MethodType.methodType(boolean.class, Object.class)), 1, Object.class);
+            IS_CLASS = LOOKUP.findStatic(CompiledExpression.class, "isClass", MethodType.methodType(boolean.class, Class.class, Object.class));
+            PROPERTY_FALLBACK = LOOKUP.findVirtual(PropertyCallSite.class, "fallback", ACCESSOR_TYPE);
+            GENERIC_PROPERTY = LOOKUP.findStatic(ExpressionUtils.class, "getValueFromObjectOrMap", MethodType.methodType(Object.class, Object.class, String.class));
+            GET_ELEMENT = LOOKUP.findStatic(ExpressionUtils.class, "getElement", MethodType.methodType(Object.class, Object.class, int.class));
+            INVOKE_METHOD = LOOKUP.findStatic(CompiledExpression.class, "invokeMethod", MethodType.methodType(Object.class, MethodInvoker.class, CompiledExpression[].class, Object.class, Object.class));
+            COLLECT_WILDCARD = LOOKUP.findStatic(CompiledExpression.class, "collectWildcard", MethodType.methodType(Object.class, WildcardPath.class, Object.class, Object.class));
+            IS_ROOT = LOOKUP.findStatic(CompiledExpression.class, "isRoot", MethodType.methodType(boolean.class, Object.class, Object.class));
+            EVALUATE_PLAN = LOOKUP.findVirtual(EvaluationPlan.class, "evaluateCompiled", ACCESSOR_TYPE);
+            APPLY_SLICE = LOOKUP.findVirtual(Slice.class, "apply", ACCESSOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /* 源表达式 */
+    @Getter
+    private final Expression expression;
+
+    /* (Object value, Object root)Object */
+    private final MethodHandle handle;
+
+    /* 末端读取之前的管道 (Object value, Object root)Object，用于原始类型取值 */
+    private final MethodHandle parentHandle;
+
+    /* 末端读取 */
+    private final Terminal terminal;
+
+    private CompiledExpression(Expression expression) {
+        this(expression, null);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param expression     表达式
+     * @param exactAccessors 按表达式节点下标给出的属性访问器，静态类型确定时不再按接收者类型守卫，可以为null
+     */
+    CompiledExpression(Expression expression, PropertyAccessor[] exactAccessors) {
+        this.expression = expression;
+        if (expression.hasWildcard()) {
+            // 通配表达式整体作为一个节点，结果为展开后的值列表
+            this.handle = MethodHandles.insertArguments(COLLECT_WILDCARD, 0, expression.wildcardPath());
+            this.parentHandle = this.handle;
+            this.terminal = ValueTerminal.INSTANCE;
+            return;
+        }
+        MethodHandle pipeline = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, Object.class);
+        MethodHandle parentPipeline = pipeline;
+        Terminal terminal = ValueTerminal.INSTANCE;
+        final Expression[] nodes = expression.nodes();
+        for (int i = 0; i < nodes.length; i++) {
+            final Expression singleExpression = nodes[i];
+            final PropertyAccessor exactAccessor = exactAccessors == null ? null : exactAccessors[i];
+            if (singleExpression instanceof ObjectExpression) {
+                parentPipeline = pipeline;
+                terminal = new PropertyTerminal(singleExpression.getName(), exactAccessor);
+                pipeline = then(pipeline, propertyStep(singleExpression.getName(), exactAccessor));
+            } else if (singleExpression instanceof ArrayExpression) {
+                final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                if (arrayExpression.hasPropertyName()) {
+                    pipeline = then(pipeline, propertyStep(arrayExpression.getName(), exactAccessor));
+                }
+                for (int j = 0; j < arrayExpression.indexArray.length; j++) {
+                    final int index = arrayExpression.indexArray[j];
+                    parentPipeline = pipeline;
+                    if (index == ArrayExpression.SLICE) {
+                        // 切片结果是视图，没有原始类型的末端读取
+                        terminal = ValueTerminal.INSTANCE;
+                        pipeline = then(pipeline, MethodHandles.dropArguments(APPLY_SLICE.bindTo(arrayExpression.sliceAt(j)), 1, Object.class));
+                    } else {
+                        terminal = new IndexTerminal(index);
+                        pipeline = then(pipeline, MethodHandles.dropArguments(MethodHandles.insertArguments(GET_ELEMENT, 1, index), 1, Object.class));
+                    }
+                }
+            } else if (singleExpression instanceof MethodExpression) {
+                pipeline = then(pipeline, methodStep((MethodExpression) singleExpression));
+                parentPipeline = pipeline;
+                terminal = ValueTerminal.INSTANCE;
+            }
+        }
+        final EvaluationPlan plan = expression.evaluationPlan();
+        if (plan != null) {
+            // 从根对象求值时按计划复用重复的子表达式；对中间值求值（通配段、过滤条件）时参数仍从根对象取值，不能与接收者链共享，走管道
+            this.handle = MethodHandles.guardWithTest(IS_ROOT, MethodHandles.dropArguments(EVALUATE_PLAN.bindTo(plan), 1, Object.class), pipeline);
+            this.parentHandle = this.handle;
+            this.terminal = ValueTerminal.INSTANCE;
+            return;
+        }
+        this.handle = pipeline;
+        this.parentHandle = parentPipeline;
+        this.terminal = terminal;
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 表达式
+     * @return 编译后的表达式
+     */
+    static CompiledExpression compile(Expression expression) {
+        return new CompiledExpression(expression);
+    }
+
+    /**
+     * 获取值
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public Object getValue(Object instance) {
+        final ExpressionMetrics metrics = ExpressionUtils.metrics();
+        if (metrics != ExpressionMetrics.NOOP) {
+            return getValueObserved(instance, metrics);
+        }
+        return evaluate(instance, instance);
+    }
+
+    /**
+     * 记录异常和采样耗时的取值
+     */
+    private Object getValueObserved(Object instance, ExpressionMetrics metrics) {
+        final boolean sampled = metrics.sampleEvaluation();
+        final long start = sampled ? System.nanoTime() : 0L;
+        try {
+            final Object value = evaluate(instance, instance);
+            if (sampled) {
+                metrics.onEvaluation(expression, System.nanoTime() - start);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            metrics.onException(expression, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 异步获取值，方法调用在默认执行器上执行（运行时支持时为虚拟线程）
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public CompletableFuture<Object> evaluateAsync(Object instance) {
+        return evaluateAsync(instance, AsyncEvaluator.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 异步获取值，互不依赖的方法参数并发求值，方法返回的CompletionStage被组合而不阻塞等待
+     *
+     * @param instance 实例
+     * @param executor 执行方法调用的执行器
+     * @return 值
+     */
+    public CompletableFuture<Object> evaluateAsync(Object instance, Executor executor) {
+        return expression.asyncEvaluator().evaluate(instance, executor);
+    }
+
+    /**
+     * 以指定的根对象对中间值求值，方法参数仍从根对象取值
+     *
+     * @param value        中间值
+     * @param rootInstance 根对象
+     * @return 值
+     */
+    Object evaluate(Object value, Object rootInstance) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return (Object) handle.invokeExact(value, rootInstance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExpressionException("%s evaluate failed: %s", expression, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取值
+     *
+     * @param instance    实例
+     * @param targetClass 目标类型
+     * @param <T>         值类型
+     * @return 值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(Object instance, Class<T> targetClass) {
+        return (T) getValue(instance);
+    }
+
+    /**
+     * 获取int值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public int getInt(Object instance) {
+        return terminal.getInt(getParentValue(instance));
+    }
+
+    /**
+     * 获取long值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public long getLong(Object instance) {
+        return terminal.getLong(getParentValue(instance));
+    }
+
+    /**
+     * 获取double值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public double getDouble(Object instance) {
+        return terminal.getDouble(getParentValue(instance));
+    }
+
+    /**
+     * 获取boolean值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    public boolean getBoolean(Object instance) {
+        return terminal.getBoolean(getParentValue(instance));
+    }
+
+    /**
+     * 写入值，见{@link ExpressionUtils#setValue(Object, Expression, Object, boolean)}
+     *
+     * @param instance      实例
+     * @param value         值
+     * @param createMissing 是否自动创建中间节点
+     */
+    public void setValue(Object instance, Object value, boolean createMissing) {
+        ExpressionUtils.setValue(instance, expression, value, createMissing);
+    }
+
+    private Object getParentValue(Object instance) {
+        if (instance == null) {
+            return null;
+        }
+        try {
+            return (Object) parentHandle.invokeExact(instance, instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExpressionException("%s evaluate failed: %s", expression, e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+
+    /**
+     * 在管道后追加一个节点，节点输入为null时直接返回null
+     *
+     * @param pipeline 管道 (Object value, Object root)Object
+     * @param step     节点 (Object value, Object root)Object
+     * @return 新管道
+     */
+    private static MethodHandle then(MethodHandle pipeline, MethodHandle step) {
+        final MethodHandle guardedStep = MethodHandles.guardWithTest(
+                IS_NULL,
+                MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class, Object.class),
+                step
+        );
+        // (value, root) -> guardedStep(pipeline(value, root), root)
+        return MethodHandles.foldArguments(MethodHandles.dropArguments(guardedStep, 1, Object.class), pipeline);
+    }
+
+    private static MethodHandle propertyStep(String propertyName, PropertyAccessor exactAccessor) {
+        if (exactAccessor != null) {
+            return MethodHandles.dropArguments(exactAccessor.getter, 1, Object.class);
+        }
+        return MethodHandles.dropArguments(new PropertyCallSite(propertyName).dynamicInvoker(), 1, Object.class);
+    }
+
+    private static MethodHandle methodStep(MethodExpression methodExpression) {
+        final Expression[] argumentExpressions = methodExpression.arguments;
+        final CompiledExpression[] arguments = new CompiledExpression[argumentExpressions.length];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = argumentExpressions[i].compile();
+        }
+        return MethodHandles.insertArguments(INVOKE_METHOD, 0, methodExpression.invoker, arguments).asType(STEP_TYPE);
+    }
+
+    private static Object invokeMethod(MethodInvoker invoker, CompiledExpression[] argumentExpressions, Object instance, Object rootInstance) {
+        final Object[] arguments = new Object[argumentExpressions.length];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = argumentExpressions[i].evaluate(rootInstance, rootInstance);
+        }
+        return invoker.invoke(instance, arguments);
+    }
+
+    private static Object collectWildcard(WildcardPath wildcardPath, Object instance, Object rootInstance) {
+        return wildcardPath.collect(instance, rootInstance);
+    }
+
+    private static boolean isRoot(Object value, Object rootInstance) {
+        return value == rootInstance;
+    }
+
+    private static boolean isNull(Object value) {
+        return value == null;
+    }
+
+    private static boolean isClass(Class<?> clazz, Object value) {
+        return value.getClass() == clazz;
+    }
+
+    /**
+     * 属性访问调用点
+     * 以接收者类型为守卫逐级链接访问器，形成多态内联缓存，超过深度后改为通用查找
+     */
+    private static final class PropertyCallSite extends MutableCallSite {
+
+        private final String propertyName;
+
+        /* 已链接的接收者类型，与守卫一样是强引用 */
+        private final Class<?>[] linkedClasses = new Class<?>[MAX_POLYMORPHIC_DEPTH];
+
+        private int depth;
+
+        private PropertyCallSite(String propertyName) {
+            super(ACCESSOR_TYPE);
+            this.propertyName = propertyName;
+            setTarget(PROPERTY_FALLBACK.bindTo(this));
+        }
+
+        @SuppressWarnings("unused")
+        private synchronized Object fallback(Object instance) {
+            final Class<?> receiverClass = instance.getClass();
+            for (int i = 0; i < depth; i++) {
+                if (linkedClasses[i] == receiverClass) {
+                    // 其它线程已完成链接
+                    return ExpressionUtils.getValueFromObjectOrMap(instance, propertyName);
+                }
+            }
+            final PropertyAccessor accessor = PropertyAccessors.getAccessor(receiverClass, propertyName);
+            final MethodHandle test = MethodHandles.insertArguments(IS_CLASS, 0, receiverClass);
+            final MethodHandle target = accessor.getter;
+            final Object value = accessor.getValue(instance);
+            if (depth < MAX_POLYMORPHIC_DEPTH) {
+                linkedClasses[depth++] = receiverClass;
+                setTarget(MethodHandles.guardWithTest(test, target, getTarget()));
+            } else {
+                setTarget(MethodHandles.insertArguments(GENERIC_PROPERTY, 1, propertyName));
+                ExpressionUtils.metrics().onGenericFallback(propertyName);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 末端读取
+     * 接收末端读取之前的值，按原始类型读取最终结果
+     */
+    private abstract static class Terminal {
+
+        abstract int getInt(Object parent);
+
+        abstract long getLong(Object parent);
+
+        abstract double getDouble(Object parent);
+
+        abstract boolean getBoolean(Object parent);
+    }
+
+    /**
+     * 直接对值拆箱
+     */
+    private static final class ValueTerminal extends Terminal {
+
+        private static final ValueTerminal INSTANCE = new ValueTerminal();
+
+        @Override
+        int getInt(Object parent) {
+            return Primitives.toInt(parent);
+        }
+
+        @Override
+        long getLong(Object parent) {
+            return Primitives.toLong(parent);
+        }
+
+        @Override
+        double getDouble(Object parent) {
+            return Primitives.toDouble(parent);
+        }
+
+        @Override
+        boolean getBoolean(Object parent) {
+            return Primitives.toBoolean(parent);
+        }
+    }
+
+    /**
+     * 读取属性，使用单态缓存保存上一次的访问器
+     */
+    private static final class PropertyTerminal extends Terminal {
+
+        private final String propertyName;
+
+        private volatile PropertyAccessor cachedAccessor;
+
+        private PropertyTerminal(String propertyName, PropertyAccessor exactAccessor) {
+            this.propertyName = propertyName;
+            this.cachedAccessor = exactAccessor;
+        }
+
+        private PropertyAccessor accessor(Object parent) {
+            PropertyAccessor accessor = cachedAccessor;
+            if (accessor == null || accessor.ownerClass != parent.getClass()) {
+                accessor = PropertyAccessors.getAccessor(parent.getClass(), propertyName);
+                cachedAccessor = accessor;
+            }
+            return accessor;
+        }
+
+        @Override
+        int getInt(Object parent) {
+            if (parent == null) {
+                return Primitives.toInt(null);
+            }
+            return accessor(parent).getInt(parent);
+        }
+
+        @Override
+        long getLong(Object parent) {
+            if (parent == null) {
+                return Primitives.toLong(null);
+            }
+            return accessor(parent).getLong(parent);
+        }
+
+        @Override
+        double getDouble(Object parent) {
+            if (parent == null) {
+                return Primitives.toDouble(null);
+            }
+            return accessor(parent).getDouble(parent);
+        }
+
+        @Override
+        boolean getBoolean(Object parent) {
+            if (parent == null) {
+                return Primitives.toBoolean(null);
+            }
+            return accessor(parent).getBoolean(parent);
+        }
+    }
+
+    /**
+     * 按索引读取数组或集合元素
+     */
+    private static final class IndexTerminal extends Terminal {
+
+        private final int index;
+
+        private IndexTerminal(int index) {
+            this.index = index;
+        }
+
+        @Override
+        int getInt(Object parent) {
+            return parent == null ? Primitives.toInt(null) : Primitives.getIntElement(parent, index);
+        }
+
+        @Override
+        long getLong(Object parent) {
+            return parent == null ? Primitives.toLong(null) : Primitives.getLongElement(parent, index);
+        }
+
+        @Override
+        double getDouble(Object parent) {
+            return parent == null ? Primitives.toDouble(null) : Primitives.getDoubleElement(parent, index);
+        }
+
+        @Override
+        boolean getBoolean(Object parent) {
+            return parent == null ? Primitives.toBoolean(null) : Primitives.getBooleanElement(parent, index);
+        }
+    }
+}
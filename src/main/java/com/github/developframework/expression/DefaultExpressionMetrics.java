@@ -0,0 +1,317 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 默认的运行时指标实现
+ * 计数使用LongAdder；取值耗时按{@link #getSampleInterval()}分之一的概率采样，按表达式记录在以2的幂分桶的直方图中，
+ * 直方图数量有上限，超过后新的表达式不再记录
+ * <p>
+ * 可以通过{@link #registerMBean()}注册到平台MBeanServer，也可以设置系统属性{@code expression.metrics.enabled=true}在启动时自动安装并注册
+ *
+ * @author qiushui
+ */
+public class DefaultExpressionMetrics implements ExpressionMetrics, DefaultExpressionMetricsMBean {
+
+    /* MBean名称 */
+    public static final String OBJECT_NAME = "com.github.developframework.expression:type=ExpressionMetrics";
+
+    /* 默认采样间隔 */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /* 默认最多记录的表达式数量 */
+    public static final int DEFAULT_MAX_TRACKED_EXPRESSIONS = 1024;
+
+    private final LongAdder parseCount = new LongAdder();
+
+    private final LongAdder parseNanos = new LongAdder();
+
+    private final LongAdder accessorResolutionCount = new LongAdder();
+
+    private final LongAdder missingPropertyCount = new LongAdder();
+
+    private final LongAdder methodResolutionCount = new LongAdder();
+
+    private final LongAdder genericFallbackCount = new LongAdder();
+
+    private final LongAdder exceptionCount = new LongAdder();
+
+    private final LongAdder evaluationSampleCount = new LongAdder();
+
+    /* 表达式字符串 -> 耗时直方图 */
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final int maxTrackedExpressions;
+
+    private volatile int sampleInterval;
+
+    public DefaultExpressionMetrics() {
+        this(DEFAULT_SAMPLE_INTERVAL, DEFAULT_MAX_TRACKED_EXPRESSIONS);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param sampleInterval        采样间隔，平均每多少次取值采样一次，1表示全部采样
+     * @param maxTrackedExpressions 最多记录的表达式数量
+     */
+    public DefaultExpressionMetrics(int sampleInterval, int maxTrackedExpressions) {
+        if (sampleInterval < 1) {
+            throw new ExpressionException("sample interval must be positive: %d", sampleInterval);
+        }
+        this.sampleInterval = sampleInterval;
+        this.maxTrackedExpressions = maxTrackedExpressions;
+    }
+
+    /**
+     * 注册到平台MBeanServer，名称为{@value #OBJECT_NAME}，已注册时先注销旧的实例
+     */
+    public void registerMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new ExpressionException("register MBean \"%s\" failed: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    /**
+     * 从平台MBeanServer注销
+     */
+    public void unregisterMBean() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new ExpressionException("unregister MBean \"%s\" failed: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onParse(String expressionValue, long nanos) {
+        parseCount.increment();
+        parseNanos.add(nanos);
+    }
+
+    @Override
+    public void onAccessorResolved(Class<?> ownerClass, String propertyName, boolean missing) {
+        accessorResolutionCount.increment();
+        if (missing) {
+            missingPropertyCount.increment();
+        }
+    }
+
+    @Override
+    public void onMethodResolved(Class<?> receiverClass, String methodName) {
+        methodResolutionCount.increment();
+    }
+
+    @Override
+    public void onGenericFallback(String memberName) {
+        genericFallbackCount.increment();
+    }
+
+    @Override
+    public void onException(Expression expression, RuntimeException exception) {
+        exceptionCount.increment();
+    }
+
+    @Override
+    public boolean sampleEvaluation() {
+        final int interval = sampleInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
+    @Override
+    public void onEvaluation(Expression expression, long nanos) {
+        evaluationSampleCount.increment();
+        final String expressionValue = expression.toString();
+        Histogram histogram = histograms.get(expressionValue);
+        if (histogram == null) {
+            if (histograms.size() >= maxTrackedExpressions) {
+                return;
+            }
+            histogram = histograms.computeIfAbsent(expressionValue, Histogram::new);
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public long getParseCount() {
+        return parseCount.sum();
+    }
+
+    @Override
+    public double getAverageParseNanos() {
+        final long count = parseCount.sum();
+        return count == 0 ? 0d : (double) parseNanos.sum() / count;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return ExpressionUtils.getExpressionCache().getHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return ExpressionUtils.getExpressionCache().getMissCount();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        return ExpressionUtils.getExpressionCache().getHitRate();
+    }
+
+    @Override
+    public long getCacheEvictionCount() {
+        return ExpressionUtils.getExpressionCache().getEvictionCount();
+    }
+
+    @Override
+    public long getAccessorResolutionCount() {
+        return accessorResolutionCount.sum();
+    }
+
+    @Override
+    public long getMissingPropertyCount() {
+        return missingPropertyCount.sum();
+    }
+
+    @Override
+    public long getMethodResolutionCount() {
+        return methodResolutionCount.sum();
+    }
+
+    @Override
+    public long getGenericFallbackCount() {
+        return genericFallbackCount.sum();
+    }
+
+    @Override
+    public long getExceptionCount() {
+        return exceptionCount.sum();
+    }
+
+    @Override
+    public long getEvaluationSampleCount() {
+        return evaluationSampleCount.sum();
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public void setSampleInterval(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new ExpressionException("sample interval must be positive: %d", sampleInterval);
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    @Override
+    public String[] getSlowestExpressions(int limit) {
+        final List<Histogram> snapshot = new ArrayList<>(histograms.values());
+        snapshot.sort(Comparator.comparingDouble(Histogram::average).reversed());
+        final int size = Math.min(Math.max(limit, 0), snapshot.size());
+        final String[] lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            final Histogram histogram = snapshot.get(i);
+            lines[i] = String.format("%s count=%d avg=%.1f p50=%d p99=%d max=%d",
+                    histogram.expressionValue, histogram.count.get(), histogram.average(), histogram.percentile(50), histogram.percentile(99), histogram.max.get());
+        }
+        return lines;
+    }
+
+    @Override
+    public long getLatencyPercentile(String expressionValue, double percentile) {
+        final Histogram histogram = histograms.get(expressionValue);
+        return histogram == null ? -1L : histogram.percentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        parseCount.reset();
+        parseNanos.reset();
+        accessorResolutionCount.reset();
+        missingPropertyCount.reset();
+        methodResolutionCount.reset();
+        genericFallbackCount.reset();
+        exceptionCount.reset();
+        evaluationSampleCount.reset();
+        histograms.clear();
+    }
+
+    /**
+     * 耗时直方图，第i个桶记录 [2^i, 2^(i+1)) 纳秒
+     */
+    private static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final String expressionValue;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong sum = new AtomicLong();
+
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String expressionValue) {
+            this.expressionValue = expressionValue;
+        }
+
+        private void record(long nanos) {
+            final long value = Math.max(nanos, 1L);
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        private double average() {
+            final long c = count.get();
+            return c == 0 ? 0d : (double) sum.get() / c;
+        }
+
+        private long percentile(double percentile) {
+            final long c = count.get();
+            if (c == 0) {
+                return -1L;
+            }
+            final long rank = (long) Math.ceil(c * Math.min(Math.max(percentile, 0d), 100d) / 100d);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return max.get();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.developframework.expression;
+
+/**
+ * {@link DefaultExpressionMetrics}的JMX管理接口
+ *
+ * @author qiushui
+ */
+public interface DefaultExpressionMetricsMBean {
+
+    long getParseCount();
+
+    double getAverageParseNanos();
+
+    long getCacheHitCount();
+
+    long getCacheMissCount();
+
+    double getCacheHitRate();
+
+    long getCacheEvictionCount();
+
+    long getAccessorResolutionCount();
+
+    /**
+     * 解析结果为属性不存在的（类型，属性名称）数量，负缓存之后的重复访问不计入
+     */
+    long getMissingPropertyCount();
+
+    long getMethodResolutionCount();
+
+    long getGenericFallbackCount();
+
+    long getExceptionCount();
+
+    long getEvaluationSampleCount();
+
+    int getSampleInterval();
+
+    void setSampleInterval(int sampleInterval);
+
+    /**
+     * 按采样平均耗时降序列出表达式
+     *
+     * @param limit 数量上限
+     * @return 每行格式：表达式 count=采样数 avg=平均 p50=中位数 p99=99分位 max=最大值（纳秒）
+     */
+    String[] getSlowestExpressions(int limit);
+
+    /**
+     * 返回表达式的采样耗时分位数
+     *
+     * @param expressionValue 表达式字符串
+     * @param percentile      分位数，0到100
+     * @return 耗时（纳秒，按2的幂分桶的上界），无采样时为-1
+     */
+    long getLatencyPercentile(String expressionValue, double percentile);
+
+    /**
+     * 清空所有指标
+     */
+    void reset();
+}
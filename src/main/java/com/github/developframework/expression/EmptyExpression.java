@@ -13,6 +13,7 @@ public class EmptyExpression extends Expression {
 
     private EmptyExpression() {
         expressionValue = "";
+        interned = true;
     }
 
     /**
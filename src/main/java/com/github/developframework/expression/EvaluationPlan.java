@@ -0,0 +1,231 @@
+package com.github.developframework.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 求值计划
+ * 含方法节点的表达式中，接收者链与方法参数（包括嵌套参数）常常重复同一段路径，
+ * 示例： fmt(user.locale, user.locale)、user.format(user.locale) 重复 user 与 user.locale
+ * 计划把接收者链和所有参数中只含属性和索引的子表达式按节点去重（规范化节点按引用），每个不同的子表达式分配一个槽位，
+ * 一次求值中只计算一次并保存在槽位数组中复用；槽位在首次被需要时才求值，null短路的行为与逐个求值一致
+ * 方法可能有副作用（迭代器、计数器、时钟），每次出现都单独调用，方法之后的节点也不共享；只在存在重复时创建计划
+ * 包含通配的参数作为整体占用一个槽位，从根对象求值
+ * 同步求值与{@link AsyncEvaluator}共用同一份槽位规划
+ *
+ * @author qiushui
+ */
+final class EvaluationPlan {
+
+    /* 未求值的槽位 */
+    private static final Object UNSET = new Object();
+
+    /* 根对象的槽位下标 */
+    static final int ROOT = -1;
+
+    /* 槽位，父槽位和参数槽位总在之前，最后一个槽位是整个表达式 */
+    final Slot[] slots;
+
+    private EvaluationPlan(Slot[] slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * 创建求值计划
+     *
+     * @param expression 表达式
+     * @return 求值计划，不含方法节点、接收者链包含通配或没有重复的子表达式时返回null
+     */
+    static EvaluationPlan of(Expression expression) {
+        if (!hasMethod(expression) || expression.hasWildcard()) {
+            return null;
+        }
+        final EvaluationPlan plan = plan(expression);
+        return plan.slots.length == pathLength(expression) ? null : plan;
+    }
+
+    /**
+     * 规划槽位，不论是否存在重复
+     *
+     * @param expression 表达式
+     * @return 求值计划，接收者链包含通配时整个表达式是一个槽位
+     */
+    static EvaluationPlan plan(Expression expression) {
+        final Builder builder = new Builder();
+        builder.slot(expression);
+        return new EvaluationPlan(builder.slots.toArray(Slot[]::new));
+    }
+
+    /**
+     * 解释执行
+     *
+     * @param instance 根对象
+     * @param lenient  属性不存在时是否直接返回null
+     * @return 值
+     */
+    Object evaluate(Object instance, boolean lenient) {
+        return compute(slots.length - 1, instance, newValues(), lenient ? Mode.LENIENT : Mode.STRICT);
+    }
+
+    /**
+     * 以编译后的单节点表达式执行，属性节点使用内联缓存
+     *
+     * @param instance 根对象
+     * @return 值
+     */
+    Object evaluateCompiled(Object instance) {
+        return compute(slots.length - 1, instance, newValues(), Mode.COMPILED);
+    }
+
+    private Object[] newValues() {
+        final Object[] values = new Object[slots.length];
+        Arrays.fill(values, UNSET);
+        return values;
+    }
+
+    private Object compute(int index, Object instance, Object[] values, Mode mode) {
+        if (index == ROOT) {
+            return instance;
+        }
+        Object value = values[index];
+        if (value != UNSET) {
+            return value;
+        }
+        final Slot slot = slots[index];
+        final Object parent = compute(slot.parent, instance, values, mode);
+        if (parent == null) {
+            value = null;
+        } else if (slot.whole) {
+            value = mode == Mode.COMPILED ? slot.step.compile().evaluate(instance, instance) : ExpressionUtils.evaluate(instance, slot.node, mode == Mode.LENIENT);
+        } else if (slot.node instanceof MethodExpression) {
+            final Object[] arguments = new Object[slot.arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = compute(slot.arguments[i], instance, values, mode);
+            }
+            value = ((MethodExpression) slot.node).invoker.invoke(parent, arguments);
+        } else if (mode == Mode.COMPILED) {
+            value = slot.step.compile().evaluate(parent, instance);
+        } else if (slot.node instanceof ArrayExpression) {
+            value = ExpressionUtils.getValueFromArray(parent, (ArrayExpression) slot.node, mode == Mode.LENIENT);
+        } else {
+            value = ExpressionUtils.getValueFromObjectOrMap(parent, slot.node.getName(), mode == Mode.LENIENT);
+        }
+        values[index] = value;
+        return value;
+    }
+
+    static boolean hasMethod(Expression expression) {
+        for (Expression node : expression.nodes()) {
+            if (node instanceof MethodExpression) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 逐个求值时计算的节点数量
+     */
+    private static int pathLength(Expression expression) {
+        int length = 0;
+        for (Expression node : expression.nodes()) {
+            length++;
+            if (node instanceof MethodExpression) {
+                for (Expression argument : ((MethodExpression) node).arguments) {
+                    length += argument.hasWildcard() ? 1 : pathLength(argument);
+                }
+            }
+        }
+        return length;
+    }
+
+    private enum Mode {
+
+        STRICT, LENIENT, COMPILED
+    }
+
+    /**
+     * 槽位
+     */
+    static final class Slot {
+
+        /* 节点 */
+        final Expression node;
+
+        /* 父槽位，根对象为{@link #ROOT} */
+        final int parent;
+
+        /* 方法参数的槽位，非方法节点为null */
+        final int[] arguments;
+
+        /* 以父值为起点的单节点表达式，整体槽位为表达式本身，方法节点为null */
+        final Expression step;
+
+        /* 是否是从根对象整体求值的通配表达式 */
+        final boolean whole;
+
+        private Slot(Expression node, int parent, int[] arguments, Expression step, boolean whole) {
+            this.node = node;
+            this.parent = parent;
+            this.arguments = arguments;
+            this.step = step;
+            this.whole = whole;
+        }
+    }
+
+    /**
+     * 按节点去重分配槽位
+     */
+    private static final class Builder {
+
+        private final List<Slot> slots = new ArrayList<>();
+
+        private final Map<Expression, Integer> indexes = new HashMap<>();
+
+        /**
+         * 登记表达式及其所有前缀和参数
+         *
+         * @return 槽位下标
+         */
+        private int slot(Expression expression) {
+            if (expression == EmptyExpression.INSTANCE) {
+                return ROOT;
+            }
+            // 含方法的子表达式每次出现都单独求值
+            final boolean shared = !hasMethod(expression);
+            if (shared) {
+                final Integer existing = indexes.get(expression);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            final Slot slot;
+            if (expression.hasWildcard()) {
+                slot = new Slot(expression, ROOT, null, expression, true);
+            } else {
+                final int parent = slot(expression.getParentExpression());
+                if (expression instanceof MethodExpression) {
+                    final Expression[] argumentExpressions = ((MethodExpression) expression).arguments;
+                    final int[] arguments = new int[argumentExpressions.length];
+                    for (int i = 0; i < arguments.length; i++) {
+                        arguments[i] = slot(argumentExpressions[i]);
+                    }
+                    slot = new Slot(expression, parent, arguments, null, false);
+                } else if (expression instanceof ArrayExpression) {
+                    final ArrayExpression arrayExpression = (ArrayExpression) expression;
+                    slot = new Slot(expression, parent, null, Expression.intern(new ArrayExpression(arrayExpression.expressionValue, arrayExpression.name, arrayExpression.indexArray, null, arrayExpression.slices)), false);
+                } else {
+                    slot = new Slot(expression, parent, null, Expression.intern(new ObjectExpression(expression.getName())), false);
+                }
+            }
+            slots.add(slot);
+            if (shared) {
+                indexes.put(expression, slots.size() - 1);
+            }
+            return slots.size() - 1;
+        }
+    }
+}
@@ -1,23 +1,36 @@
 package com.github.developframework.expression;
 
 import com.github.developframework.expression.exception.ExpressionException;
-import lombok.EqualsAndHashCode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 表达式抽象基类
+ * 解析得到的节点经过规范化：同一父节点下表达式字符串相同的子节点只保留一个实例，相同前缀的表达式共享前缀节点，
+ * 因此规范化节点之间的equals只需比较引用；hashCode与toString在首次使用时计算并缓存
+ * 规范化表以弱引用持有子节点，不再被使用的节点可以被回收
  *
  * @author qiushui
  */
 @Getter
-@EqualsAndHashCode(of = {"parentExpression", "expressionValue"})
 public abstract class Expression {
 
+    /* 没有求值计划的标记 */
+    private static final Object NO_PLAN = new Object();
+
+    /* 已被回收的规范化节点的引用队列 */
+    private static final ReferenceQueue<Expression> STALE_NODES = new ReferenceQueue<>();
+
     protected String expressionValue;
 
     /* 父表达式对象 */
@@ -26,16 +39,170 @@ public abstract class Expression {
     /* 名称 */
     protected String name;
 
+    /* 编译结果 */
+    @Getter(AccessLevel.NONE)
+    private volatile CompiledExpression compiledExpression;
+
+    /* 解释执行次数，仅用于分层编译的近似计数，允许竞争丢失 */
+    @Getter(AccessLevel.NONE)
+    private int evaluationCount;
+
+    /* 写入器，首次写入时创建 */
+    @Getter(AccessLevel.NONE)
+    private volatile ExpressionWriter writer;
+
+    /* 通配路径，首次使用时创建 */
+    @Getter(AccessLevel.NONE)
+    private volatile WildcardPath wildcardPath;
+
+    /* 求值计划，首次使用时创建，没有计划时为{@link #NO_PLAN} */
+    @Getter(AccessLevel.NONE)
+    private volatile Object evaluationPlan;
+
+    /* 异步求值器，首次使用时创建 */
+    @Getter(AccessLevel.NONE)
+    private volatile AsyncEvaluator asyncEvaluator;
+
+    /* 是否包含通配索引：0 未计算，1 否，2 是 */
+    @Getter(AccessLevel.NONE)
+    private volatile byte wildcardState;
+
+    /* 自根向下扁平化的表达式节点，首次使用时计算 */
+    @Getter(AccessLevel.NONE)
+    private volatile Expression[] nodes;
+
+    /* 表达式树的只读视图 */
+    @Getter(AccessLevel.NONE)
+    private volatile List<Expression> expressionTree;
+
+    /* 是否是规范化节点 */
+    @Getter(AccessLevel.NONE)
+    boolean interned;
+
+    /* 规范化的子节点表：表达式字符串 -> 子节点，首次规范化子节点时创建 */
+    @Getter(AccessLevel.NONE)
+    private volatile ConcurrentMap<String, InternedNode> children;
+
+    /* hashCode缓存，0表示未计算 */
+    @Getter(AccessLevel.NONE)
+    private int hash;
+
+    /* toString缓存 */
+    @Getter(AccessLevel.NONE)
+    private String string;
+
     @Override
     public String toString() {
-        return (parentExpression == null || parentExpression == EmptyExpression.INSTANCE ? "" : parentExpression + ".") + expressionValue;
+        String s = string;
+        if (s == null) {
+            s = (parentExpression == null || parentExpression == EmptyExpression.INSTANCE ? "" : parentExpression + ".") + expressionValue;
+            string = s;
+        }
+        return s;
     }
 
-    public void setParentExpression(Expression parentExpression) {
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Expression)) {
+            return false;
+        }
+        final Expression other = (Expression) o;
+        if (interned && other.interned) {
+            return false;
+        }
+        return hashCode() == other.hashCode()
+                && expressionValue.equals(other.expressionValue)
+                && Objects.equals(parentExpression, other.parentExpression);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = expressionValue.hashCode();
+            if (parentExpression != null && parentExpression != this) {
+                h += 31 * parentExpression.hashCode();
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * 设置父表达式
+     * 表达式对象在解析完成后不可变，可被缓存并在多线程间共享，因此仅限包内构建时使用
+     *
+     * @param parentExpression 父表达式对象
+     */
+    void setParentExpression(Expression parentExpression) {
         if (parentExpression == null) {
             throw new ExpressionException("can't set null to parent expression.");
         }
+        if (interned) {
+            throw new ExpressionException("can't change parent of interned expression \"%s\".", this);
+        }
         this.parentExpression = parentExpression;
+        this.nodes = null;
+        this.expressionTree = null;
+        this.wildcardState = 0;
+        this.hash = 0;
+        this.string = null;
+    }
+
+    /**
+     * 规范化节点
+     * 父节点已规范化时，返回父节点下表达式字符串相同的已有节点，没有则登记并返回本节点；父节点未规范化时原样返回
+     *
+     * @param expression 父表达式已设置完成的节点
+     * @param <T>        节点类型
+     * @return 规范化节点
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Expression> T intern(T expression) {
+        final Expression parent = expression.parentExpression;
+        if (expression.interned || parent == null || !parent.interned) {
+            return expression;
+        }
+        purgeStaleNodes();
+        final ConcurrentMap<String, InternedNode> table = parent.children();
+        final String key = expression.expressionValue;
+        while (true) {
+            final InternedNode reference = table.get(key);
+            final Expression existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing.getClass() == expression.getClass() ? (T) existing : expression;
+            }
+            expression.interned = true;
+            final InternedNode newReference = new InternedNode(expression, table, key);
+            if (reference == null ? table.putIfAbsent(key, newReference) == null : table.replace(key, reference, newReference)) {
+                return expression;
+            }
+            expression.interned = false;
+        }
+    }
+
+    private ConcurrentMap<String, InternedNode> children() {
+        ConcurrentMap<String, InternedNode> table = children;
+        if (table == null) {
+            synchronized (this) {
+                table = children;
+                if (table == null) {
+                    table = new ConcurrentHashMap<>(4);
+                    children = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void purgeStaleNodes() {
+        InternedNode reference;
+        while ((reference = (InternedNode) STALE_NODES.poll()) != null) {
+            reference.table.remove(reference.key, reference);
+        }
     }
 
     /**
@@ -76,121 +243,207 @@ public abstract class Expression {
     }
 
     /**
-     * 返回表达式树
+     * 编译表达式，编译结果与表达式对象绑定，重复调用返回同一实例
      *
-     * @return 表达式树
+     * @return 编译后的表达式
      */
-    public List<Expression> expressionTree() {
-        List<Expression> expressionTree = new LinkedList<>();
-        Expression tempExpression = this;
-        while (tempExpression != EmptyExpression.INSTANCE) {
-            expressionTree.add(0, tempExpression);
-            tempExpression = tempExpression.parentExpression;
+    public CompiledExpression compile() {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(this);
+            compiledExpression = compiled;
         }
-        return Collections.unmodifiableList(expressionTree);
+        return compiled;
     }
 
     /**
-     * 将表达式字符串解析成表达式对象
+     * 是否已编译
      *
-     * @param expressionValue 表达式字符串
-     * @return 表达式对象
+     * @return 判断结果
      */
-    public static Expression parse(String expressionValue) {
-        String[] expressionFragments = split(expressionValue);
-        Expression expression = EmptyExpression.INSTANCE;
-        for (String fragment : expressionFragments) {
-            Expression child = parseSingle(fragment);
-            child.setParentExpression(expression);
-            expression = child;
+    public boolean isCompiled() {
+        return compiledExpression != null;
+    }
+
+    /**
+     * 返回已有的MethodHandle计划；尚未构建时累加解释执行次数，达到阈值后构建，不生成类
+     *
+     * @param compileThreshold 提升阈值
+     * @return 编译后的表达式，未达到阈值时返回null
+     */
+    CompiledExpression tierUp(int compileThreshold) {
+        final CompiledExpression compiled = compiledExpression;
+        if (compiled != null) {
+            return compiled;
         }
-        return expression;
+        if (++evaluationCount >= compileThreshold) {
+            return compile();
+        }
+        return null;
     }
 
     /**
-     * 切分表达式
+     * 丢弃本节点及其规范化子孙节点上按接收者类型链接的状态：编译结果、写入器、通配路径、求值计划、异步求值器，之后的求值重新链接
+     */
+    void clearCompiledState() {
+        compiledExpression = null;
+        evaluationCount = 0;
+        writer = null;
+        wildcardPath = null;
+        evaluationPlan = null;
+        asyncEvaluator = null;
+        final ConcurrentMap<String, InternedNode> table = children;
+        if (table != null) {
+            for (InternedNode reference : table.values()) {
+                final Expression child = reference.get();
+                if (child != null) {
+                    child.clearCompiledState();
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回写入器，结果与表达式对象绑定
      *
-     * @param expressionValue 表达式字符串
-     * @return 切分结果
+     * @return 写入器
      */
-    private static String[] split(String expressionValue) {
-        if (StringUtils.isBlank(expressionValue)) {
-            return new String[0];
-        }
-        if (!expressionValue.contains(".")) {
-            return new String[]{expressionValue};
-        }
-        if (!expressionValue.contains("(")) {
-            return expressionValue.split("\\.");
-        }
-        List<String> parts = new LinkedList<>();
-        StringBuilder sb = new StringBuilder();
-        int inBracketLevel = 0;
-        for (int i = 0, len = expressionValue.length(); i < len; i++) {
-            final char ch = expressionValue.charAt(i);
-            switch (ch) {
-                case '(':
-                    inBracketLevel++;
-                    break;
-                case ')':
-                    inBracketLevel--;
+    ExpressionWriter writer() {
+        ExpressionWriter result = writer;
+        if (result == null) {
+            result = new ExpressionWriter(this);
+            writer = result;
+        }
+        return result;
+    }
+
+    /**
+     * 是否包含通配索引 [*]，包含时取值结果是展开后的值列表
+     *
+     * @return 判断结果
+     */
+    public final boolean hasWildcard() {
+        byte state = wildcardState;
+        if (state == 0) {
+            state = 1;
+            for (Expression node : nodes()) {
+                if (node instanceof ArrayExpression && ((ArrayExpression) node).hasWildcardIndex()) {
+                    state = 2;
                     break;
-                case '.': {
-                    if (inBracketLevel == 0) {
-                        parts.add(sb.toString());
-                        sb.setLength(0);
-                    } else {
-                        sb.append(ch);
-                    }
                 }
-                continue;
             }
-            sb.append(ch);
+            wildcardState = state;
+        }
+        return state == 2;
+    }
+
+    /**
+     * 返回通配路径，结果与表达式对象绑定
+     *
+     * @return 通配路径
+     */
+    WildcardPath wildcardPath() {
+        WildcardPath result = wildcardPath;
+        if (result == null) {
+            result = new WildcardPath(this);
+            wildcardPath = result;
+        }
+        return result;
+    }
+
+    /**
+     * 返回异步求值器，结果与表达式对象绑定
+     *
+     * @return 异步求值器
+     */
+    AsyncEvaluator asyncEvaluator() {
+        AsyncEvaluator result = asyncEvaluator;
+        if (result == null) {
+            result = new AsyncEvaluator(this);
+            asyncEvaluator = result;
+        }
+        return result;
+    }
+
+    /**
+     * 返回求值计划，结果与表达式对象绑定
+     *
+     * @return 求值计划，没有重复的子表达式时返回null
+     */
+    EvaluationPlan evaluationPlan() {
+        Object result = evaluationPlan;
+        if (result == null) {
+            final EvaluationPlan plan = EvaluationPlan.of(this);
+            result = plan == null ? NO_PLAN : plan;
+            evaluationPlan = result;
+        }
+        return result == NO_PLAN ? null : (EvaluationPlan) result;
+    }
+
+    /**
+     * 返回表达式树
+     *
+     * @return 表达式树
+     */
+    public List<Expression> expressionTree() {
+        List<Expression> tree = expressionTree;
+        if (tree == null) {
+            tree = Collections.unmodifiableList(Arrays.asList(nodes()));
+            expressionTree = tree;
         }
-        if (sb.length() > 0) {
-            parts.add(sb.toString());
+        return tree;
+    }
+
+    /**
+     * 返回自根向下扁平化的表达式节点，结果只计算一次，调用方不得修改
+     *
+     * @return 表达式节点数组
+     */
+    Expression[] nodes() {
+        Expression[] result = nodes;
+        if (result == null) {
+            if (this == EmptyExpression.INSTANCE) {
+                result = new Expression[0];
+            } else {
+                final Expression[] parentNodes = parentExpression.nodes();
+                result = Arrays.copyOf(parentNodes, parentNodes.length + 1);
+                result[parentNodes.length] = this;
+            }
+            nodes = result;
         }
-        return parts.toArray(String[]::new);
+        return result;
     }
 
     /**
-     * 解析单项
+     * 将表达式字符串解析成表达式对象
      *
-     * @param singleExpressionValue 单项表达式字符串
-     * @return 单项表达式对象
+     * @param expressionValue 表达式字符串
+     * @return 表达式对象
+     * @throws com.github.developframework.expression.exception.ExpressionParseException 语法错误时抛出，包含出错位置
      */
-    private static Expression parseSingle(String singleExpressionValue) {
-        if (ArrayExpression.isArrayExpression(singleExpressionValue)) {
-            return new ArrayExpression(singleExpressionValue);
-        } else if (MethodExpression.isMethodExpression(singleExpressionValue)) {
-            return new MethodExpression(singleExpressionValue);
-        } else {
-            return new ObjectExpression(singleExpressionValue);
+    public static Expression parse(String expressionValue) {
+        if (StringUtils.isBlank(expressionValue)) {
+            return EmptyExpression.INSTANCE;
         }
+        final ExpressionMetrics metrics = ExpressionUtils.metrics();
+        if (metrics == ExpressionMetrics.NOOP) {
+            return ExpressionParser.parse(expressionValue);
+        }
+        final long start = System.nanoTime();
+        final Expression expression = ExpressionParser.parse(expressionValue);
+        metrics.onParse(expressionValue, System.nanoTime() - start);
+        return expression;
     }
 
     /**
      * 复制表达式对象
+     * 表达式对象不可变，直接返回原对象
      *
      * @param expression 表达式对象
-     * @return 新的表达式对象
+     * @return 表达式对象
      */
     public static Expression copy(Expression expression) {
-        Expression newExpression;
-        if (expression instanceof ObjectExpression) {
-            newExpression = new ObjectExpression(expression.getName());
-        } else if (expression instanceof ArrayExpression) {
-            ArrayExpression arrayExpression = (ArrayExpression) expression;
-            newExpression = new ArrayExpression(arrayExpression.getName(), arrayExpression.getIndexArray());
-        } else {
-            newExpression = EmptyExpression.INSTANCE;
-        }
-        if (expression.getParentExpression() != EmptyExpression.INSTANCE) {
-            newExpression.setParentExpression(copy(expression.getParentExpression()));
-        } else {
-            newExpression.setParentExpression(EmptyExpression.INSTANCE);
-        }
-        return newExpression;
+        return expression;
     }
 
     /**
@@ -217,14 +470,39 @@ public abstract class Expression {
         }
         if (parentExpression == EmptyExpression.INSTANCE) {
             return childExpression;
-        } else {
-            Expression newExpression = copy(childExpression);
-            if (newExpression.getParentExpression() == EmptyExpression.INSTANCE) {
-                newExpression.setParentExpression(parentExpression);
+        }
+        // 父表达式原样复用，只在其下重建子表达式的各个节点
+        Expression expression = parentExpression;
+        for (Expression singleExpression : childExpression.nodes()) {
+            final Expression newExpression;
+            if (singleExpression instanceof ArrayExpression) {
+                final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                newExpression = new ArrayExpression(arrayExpression.expressionValue, arrayExpression.name, arrayExpression.indexArray, arrayExpression.filters, arrayExpression.slices);
+            } else if (singleExpression instanceof MethodExpression) {
+                final MethodExpression methodExpression = (MethodExpression) singleExpression;
+                newExpression = new MethodExpression(methodExpression.name, methodExpression.arguments);
             } else {
-                newExpression.getParentExpression().setParentExpression(parentExpression);
+                newExpression = new ObjectExpression(singleExpression.name);
             }
-            return newExpression;
+            newExpression.setParentExpression(expression);
+            expression = intern(newExpression);
+        }
+        return expression;
+    }
+
+    /**
+     * 规范化表中对子节点的弱引用
+     */
+    private static final class InternedNode extends WeakReference<Expression> {
+
+        private final ConcurrentMap<String, InternedNode> table;
+
+        private final String key;
+
+        private InternedNode(Expression expression, ConcurrentMap<String, InternedNode> table, String key) {
+            super(expression, STALE_NODES);
+            this.table = table;
+            this.key = key;
         }
     }
 }
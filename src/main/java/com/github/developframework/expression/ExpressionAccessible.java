@@ -0,0 +1,20 @@
+package com.github.developframework.expression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注需要在编译期生成属性访问器表的类型
+ * 配合expression-processor注解处理器使用，处理器为标注的类型生成{@link PropertyAccessorTable}实现并登记到
+ * META-INF/services，运行时通过ServiceLoader发现，读写这些类型的属性时不再使用反射查找
+ *
+ * @author qiushui
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ExpressionAccessible {
+}
@@ -0,0 +1,298 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 表达式绑定器
+ * 从根类型出发逐个节点推导静态类型：属性取getter方法或字段的泛型类型，索引取数组的元素类型或Collection的元素类型，
+ * Map的属性取值类型，方法取返回类型；类型变量按所在类型的实际类型参数替换
+ * 静态类型为Object时无法检查，之后的节点在运行时按实际类型分派
+ *
+ * @author qiushui
+ */
+final class ExpressionBinder {
+
+    private final Expression expression;
+
+    private final Type rootType;
+
+    /* 按节点下标记录的确定访问器 */
+    private final PropertyAccessor[] exactAccessors;
+
+    private ExpressionBinder(Type rootType, Expression expression) {
+        this.expression = expression;
+        this.rootType = rootType;
+        this.exactAccessors = new PropertyAccessor[expression.nodes().length];
+    }
+
+    /**
+     * 绑定表达式
+     *
+     * @param rootType   根类型
+     * @param expression 表达式
+     * @return 绑定的表达式
+     */
+    static BoundExpression bind(Type rootType, Expression expression) {
+        final ExpressionBinder binder = new ExpressionBinder(rootType, expression);
+        final Type valueType = binder.bindNodes();
+        if (expression.hasWildcard()) {
+            // 通配表达式的值是展开后的值列表
+            return new BoundExpression(expression, rootType, new ParameterizedTypeImpl(List.class, new Type[]{valueType}, null), expression.compile());
+        }
+        return new BoundExpression(expression, rootType, valueType, new CompiledExpression(expression, binder.exactAccessors));
+    }
+
+    private Type bindNodes() {
+        final Expression[] nodes = expression.nodes();
+        Type type = rootType;
+        for (int i = 0; i < nodes.length; i++) {
+            final Expression singleExpression = nodes[i];
+            if (singleExpression instanceof ObjectExpression) {
+                type = property(type, singleExpression.getName(), i);
+            } else if (singleExpression instanceof ArrayExpression) {
+                final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                if (arrayExpression.hasPropertyName()) {
+                    type = property(type, arrayExpression.getName(), i);
+                }
+                for (int index : arrayExpression.indexArray) {
+                    if (index == ArrayExpression.SLICE) {
+                        // 切片的值是元素的List视图，原始类型元素装箱
+                        final Type elementType = element(type, false);
+                        type = new ParameterizedTypeImpl(List.class, new Type[]{elementType instanceof Class ? ClassUtils.primitiveToWrapper((Class<?>) elementType) : elementType}, null);
+                    } else {
+                        type = element(type, index == ArrayExpression.WILDCARD);
+                    }
+                }
+            } else if (singleExpression instanceof MethodExpression) {
+                type = method(type, (MethodExpression) singleExpression);
+            }
+        }
+        return type;
+    }
+
+    private Type property(Type type, String propertyName, int nodeIndex) {
+        final Class<?> rawClass = rawClass(type);
+        if (rawClass == Object.class) {
+            return Object.class;
+        }
+        if (rawClass.isPrimitive() || rawClass.isArray()) {
+            throw error("type \"%s\" has no property \"%s\"", type.getTypeName(), propertyName);
+        }
+        if (PropertyAccessors.isMap(rawClass)) {
+            return argumentOf(type, Map.class, 1);
+        }
+        final PropertyAccessor accessor = PropertyAccessors.getAccessor(rawClass, propertyName);
+        if (accessor.isMissing()) {
+            throw error("no such property \"%s\" in type \"%s\"", propertyName, type.getTypeName());
+        }
+        if (Modifier.isFinal(rawClass.getModifiers())) {
+            exactAccessors[nodeIndex] = accessor;
+        }
+        return substitute(accessor.genericType, type);
+    }
+
+    private Type element(Type type, boolean wildcard) {
+        final Class<?> rawClass = rawClass(type);
+        if (rawClass == Object.class) {
+            return Object.class;
+        }
+        if (rawClass.isArray()) {
+            return type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() : rawClass.getComponentType();
+        }
+        if (Collection.class.isAssignableFrom(rawClass) || (wildcard && Iterable.class.isAssignableFrom(rawClass))) {
+            return argumentOf(type, Iterable.class, 0);
+        }
+        throw error("type \"%s\" is not array or Collection", type.getTypeName());
+    }
+
+    private Type method(Type type, MethodExpression methodExpression) {
+        for (Expression argument : methodExpression.arguments) {
+            new ExpressionBinder(rootType, argument).bindNodes();
+        }
+        final Class<?> rawClass = rawClass(type);
+        if (rawClass == Object.class) {
+            return Object.class;
+        }
+        final int argumentCount = methodExpression.arguments.length;
+        // 与运行时的方法查找一致，只考虑public方法
+        final List<Method> candidates = new ArrayList<>();
+        final List<Class<?>> classes = new ArrayList<>();
+        classes.add(rawClass);
+        classes.addAll(ClassUtils.getAllSuperclasses(rawClass));
+        classes.addAll(ClassUtils.getAllInterfaces(rawClass));
+        for (Class<?> clazz : classes) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(methodExpression.getName()) && method.getParameterCount() == argumentCount && Modifier.isPublic(method.getModifiers()) && !method.isBridge()) {
+                    candidates.add(method);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw error("no such method \"%s\" with %d arguments in type \"%s\"", methodExpression.getName(), argumentCount, type.getTypeName());
+        }
+        // 重载方法的返回类型不同时无法静态确定
+        final Type returnType = substitute(candidates.get(0).getGenericReturnType(), type);
+        for (Method candidate : candidates) {
+            if (!Objects.equals(substitute(candidate.getGenericReturnType(), type), returnType)) {
+                return Object.class;
+            }
+        }
+        return returnType == void.class ? Object.class : returnType;
+    }
+
+    private ExpressionException error(String format, Object... objs) {
+        return new ExpressionException("Can't bind expression \"%s\" to type \"%s\": %s", expression, rootType.getTypeName(), String.format(format, objs));
+    }
+
+    /**
+     * 类型的原始类型，类型变量和通配符取上界
+     *
+     * @param type 类型
+     * @return 原始类型
+     */
+    static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        } else if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        } else if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * 从type看到的target的第index个类型参数
+     *
+     * @param type   类型
+     * @param target 父类型
+     * @param index  类型参数下标
+     * @return 类型参数，使用原始类型时为Object
+     */
+    private static Type argumentOf(Type type, Class<?> target, int index) {
+        final Class<?> rawClass = rawClass(type);
+        if (rawClass == target) {
+            return type instanceof ParameterizedType ? substitute(((ParameterizedType) type).getActualTypeArguments()[index], type) : Object.class;
+        }
+        final List<Type> supertypes = new ArrayList<>(Arrays.asList(rawClass.getGenericInterfaces()));
+        if (rawClass.getGenericSuperclass() != null) {
+            supertypes.add(rawClass.getGenericSuperclass());
+        }
+        for (Type supertype : supertypes) {
+            if (target.isAssignableFrom(rawClass(supertype))) {
+                return argumentOf(substitute(supertype, type), target, index);
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 以context的实际类型参数替换type中的类型变量，无法确定的类型变量取上界的原始类型
+     *
+     * @param type    类型
+     * @param context 上下文类型
+     * @return 替换后的类型
+     */
+    private static Type substitute(Type type, Type context) {
+        if (type instanceof Class) {
+            return type;
+        } else if (type instanceof TypeVariable) {
+            final TypeVariable<?> variable = (TypeVariable<?>) type;
+            final GenericDeclaration declaration = variable.getGenericDeclaration();
+            // 上下文使用原始类型时类型变量无法确定
+            if (declaration instanceof Class && ((Class<?>) declaration).isAssignableFrom(rawClass(context))
+                    && (context instanceof ParameterizedType || declaration != rawClass(context))) {
+                final int index = Arrays.asList(((Class<?>) declaration).getTypeParameters()).indexOf(variable);
+                final Type argument = argumentOf(context, (Class<?>) declaration, index);
+                return argument instanceof TypeVariable ? rawClass(argument) : argument;
+            }
+            return rawClass(variable.getBounds()[0]);
+        } else if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterizedType = (ParameterizedType) type;
+            final Type[] arguments = parameterizedType.getActualTypeArguments().clone();
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = substitute(arguments[i], context);
+            }
+            return new ParameterizedTypeImpl((Class<?>) parameterizedType.getRawType(), arguments, parameterizedType.getOwnerType());
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(substitute(((GenericArrayType) type).getGenericComponentType(), context)), 0).getClass();
+        } else if (type instanceof WildcardType) {
+            return substitute(((WildcardType) type).getUpperBounds()[0], context);
+        }
+        return Object.class;
+    }
+
+    /**
+     * 替换类型变量后的参数化类型
+     */
+    private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+        private final Class<?> rawType;
+
+        private final Type[] arguments;
+
+        private final Type ownerType;
+
+        private ParameterizedTypeImpl(Class<?> rawType, Type[] arguments, Type ownerType) {
+            this.rawType = rawType;
+            this.arguments = arguments;
+            this.ownerType = ownerType;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return arguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParameterizedType)) {
+                return false;
+            }
+            final ParameterizedType other = (ParameterizedType) o;
+            return rawType.equals(other.getRawType()) && Objects.equals(ownerType, other.getOwnerType()) && Arrays.equals(arguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(arguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String getTypeName() {
+            final StringBuilder sb = new StringBuilder(rawType.getTypeName()).append('<');
+            for (int i = 0; i < arguments.length; i++) {
+                sb.append(i == 0 ? "" : ", ").append(arguments[i].getTypeName());
+            }
+            return sb.append('>').toString();
+        }
+
+        @Override
+        public String toString() {
+            return getTypeName();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 表达式解析缓存
+ * 以表达式字符串为键缓存解析结果，容量有界，采用CLOCK（近似LRU）淘汰策略
+ * 命中时只读取并打上访问标记，不加锁；仅未命中写入时加锁
+ *
+ * @author qiushui
+ */
+public class ExpressionCache {
+
+    /* 默认容量 */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("expression.cache.capacity", 1024);
+
+    /* 容量 */
+    private final int capacity;
+
+    private final ConcurrentHashMap<String, Node> nodeMap;
+
+    /* CLOCK环 */
+    private final Node[] ring;
+
+    /* CLOCK指针 */
+    private int hand;
+
+    /* 环中已使用的槽位数 */
+    private int used;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ExpressionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ExpressionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new ExpressionException("expression cache capacity must be positive: %d", capacity);
+        }
+        this.capacity = capacity;
+        this.nodeMap = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.ring = new Node[capacity];
+    }
+
+    /**
+     * 获取表达式，未命中时解析并放入缓存
+     *
+     * @param expressionValue 表达式字符串
+     * @return 表达式对象
+     */
+    public Expression get(String expressionValue) {
+        if (expressionValue == null) {
+            return EmptyExpression.INSTANCE;
+        }
+        Node node = nodeMap.get(expressionValue);
+        if (node != null) {
+            // 已标记时不再写入，热点表达式的命中不会让各线程反复写同一缓存行
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+            hitCount.increment();
+            return node.expression;
+        }
+        missCount.increment();
+        // 在锁外解析，解析失败的表达式不会进入缓存
+        final Expression expression = Expression.parse(expressionValue);
+        synchronized (ring) {
+            node = nodeMap.get(expressionValue);
+            if (node != null) {
+                return node.expression;
+            }
+            node = new Node(expressionValue, expression);
+            if (used < capacity) {
+                ring[used++] = node;
+            } else {
+                evict();
+                ring[hand] = node;
+                hand = (hand + 1) % capacity;
+            }
+            nodeMap.put(expressionValue, node);
+        }
+        return expression;
+    }
+
+    /**
+     * 移动CLOCK指针直到找到未被访问的槽位，淘汰其中的表达式
+     */
+    private void evict() {
+        Node victim;
+        while ((victim = ring[hand]).referenced) {
+            victim.referenced = false;
+            hand = (hand + 1) % capacity;
+        }
+        nodeMap.remove(victim.expressionValue);
+        evictionCount.increment();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (ring) {
+            nodeMap.clear();
+            for (int i = 0; i < used; i++) {
+                ring[i] = null;
+            }
+            used = 0;
+            hand = 0;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return nodeMap.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中率，无请求时为0
+     */
+    public double getHitRate() {
+        final long hit = hitCount.sum();
+        final long total = hit + missCount.sum();
+        return total == 0 ? 0d : (double) hit / total;
+    }
+
+    private static final class Node {
+
+        private final String expressionValue;
+
+        private final Expression expression;
+
+        /* 访问标记，允许良性竞争 */
+        private boolean referenced;
+
+        private Node(String expressionValue, Expression expression) {
+            this.expressionValue = expressionValue;
+            this.expression = expression;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.developframework.expression;
+
+/**
+ * 运行时指标SPI
+ * 通过{@link ExpressionUtils#setMetrics(ExpressionMetrics)}安装，默认为{@link #NOOP}，此时取值路径上只多一次引用比较
+ * 所有回调都可能在多个线程中并发调用，实现应当无锁且足够轻量；解析缓存的命中率由{@link ExpressionCache}自身统计
+ *
+ * @author qiushui
+ */
+public interface ExpressionMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    ExpressionMetrics NOOP = new ExpressionMetrics() {
+    };
+
+    /**
+     * 解析了一个表达式字符串（解析缓存未命中或直接调用{@link Expression#parse(String)}）
+     *
+     * @param expressionValue 表达式字符串
+     * @param nanos           耗时（纳秒）
+     */
+    default void onParse(String expressionValue, long nanos) {
+    }
+
+    /**
+     * 解析了一个属性访问器，每个（类型，属性名称）通常只发生一次
+     *
+     * @param ownerClass   类型
+     * @param propertyName 属性名称
+     * @param missing      属性是否不存在
+     */
+    default void onAccessorResolved(Class<?> ownerClass, String propertyName, boolean missing) {
+    }
+
+    /**
+     * 解析了一个方法调用入口，每个（接收者类型，方法签名）通常只发生一次
+     *
+     * @param receiverClass 接收者类型
+     * @param methodName    方法名称
+     */
+    default void onMethodResolved(Class<?> receiverClass, String methodName) {
+    }
+
+    /**
+     * 一个内联缓存超过多态深度，退化为通用查找
+     *
+     * @param memberName 属性或方法名称
+     */
+    default void onGenericFallback(String memberName) {
+    }
+
+    /**
+     * 取值抛出了异常
+     *
+     * @param expression 表达式
+     * @param exception  异常
+     */
+    default void onException(Expression expression, RuntimeException exception) {
+    }
+
+    /**
+     * 是否对本次取值采样计时
+     *
+     * @return 判断结果
+     */
+    default boolean sampleEvaluation() {
+        return false;
+    }
+
+    /**
+     * 一次被采样的取值完成
+     *
+     * @param expression 表达式
+     * @param nanos      耗时（纳秒）
+     */
+    default void onEvaluation(Expression expression, long nanos) {
+    }
+}
@@ -0,0 +1,409 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionParseException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 表达式解析器
+ * 手写的递归下降解析器，单次扫描输入并直接构建表达式节点
+ * <pre>
+ * expression := segment ('.' segment)*
+ * segment    := name ('(' arguments? ')' | index*)
+ *             | index+
+ * index      := '[' (integer | '*' | '?' filter | integer? ':' integer?) ']'
+ * integer    := '-'? digits
+ * arguments  := expression (',' expression)*
+ * </pre>
+ * 顶层属性名称可以包含除 . [ ] ( ) , 以外的任意字符；方法参数中的空白作为分隔，会被忽略
+ * 过滤条件的语法见{@link FilterPredicate}，其中的属性名称不能包含空白和运算符字符
+ * 负索引从末尾计算；切片省略起点为0，省略终点为末尾
+ *
+ * @author qiushui
+ */
+final class ExpressionParser {
+
+    private final String source;
+
+    private final int length;
+
+    private int position;
+
+    /* 方法参数嵌套深度 */
+    private int depth;
+
+    /* 过滤条件嵌套深度 */
+    private int filterDepth;
+
+    private ExpressionParser(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * 解析表达式字符串
+     *
+     * @param expressionValue 表达式字符串
+     * @return 表达式对象
+     */
+    static Expression parse(String expressionValue) {
+        final ExpressionParser parser = new ExpressionParser(expressionValue);
+        final Expression expression = parser.parseExpression();
+        if (parser.position < parser.length) {
+            throw parser.error("Unexpected character '%c'", expressionValue.charAt(parser.position));
+        }
+        return expression;
+    }
+
+    /**
+     * 将表达式字符串解析为单个节点
+     *
+     * @param expressionValue 表达式字符串
+     * @return 单个节点，不是单个节点或不合法时返回null
+     */
+    static Expression parseSegment(String expressionValue) {
+        if (expressionValue == null || expressionValue.isEmpty()) {
+            return null;
+        }
+        final ExpressionParser parser = new ExpressionParser(expressionValue);
+        try {
+            final Expression segment = parser.parseSegmentNode();
+            return parser.position == parser.length ? segment : null;
+        } catch (ExpressionParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析过滤条件
+     *
+     * @param filterValue 过滤条件字符串
+     * @return 过滤谓词
+     */
+    static FilterPredicate parseFilter(String filterValue) {
+        final ExpressionParser parser = new ExpressionParser(filterValue);
+        final FilterPredicate filter = parser.parseFilterPredicate();
+        if (parser.position < parser.length) {
+            throw parser.error("Unexpected character '%c'", filterValue.charAt(parser.position));
+        }
+        return filter;
+    }
+
+    private Expression parseExpression() {
+        Expression expression = EmptyExpression.INSTANCE;
+        do {
+            final Expression segment = parseSegmentNode();
+            segment.setParentExpression(expression);
+            expression = Expression.intern(segment);
+        } while (consume('.'));
+        return expression;
+    }
+
+    private Expression parseSegmentNode() {
+        final int start = position;
+        final String name = scanName();
+        if (position < length && source.charAt(position) == '(') {
+            if (name.isEmpty()) {
+                throw error("Missing method name");
+            }
+            return parseMethod(name);
+        }
+        if (position < length && source.charAt(position) == '[') {
+            return parseArray(start, name);
+        }
+        if (name.isEmpty()) {
+            throw position < length ? error("Unexpected character '%c'", source.charAt(position)) : error("Unexpected end of expression");
+        }
+        return new ObjectExpression(name);
+    }
+
+    private Expression parseMethod(String methodName) {
+        // 跳过 '('
+        position++;
+        depth++;
+        final List<Expression> arguments = new ArrayList<>(2);
+        skipWhitespace();
+        if (!consume(')')) {
+            do {
+                skipWhitespace();
+                arguments.add(parseExpression());
+                skipWhitespace();
+            } while (consume(','));
+            expect(')');
+        }
+        depth--;
+        return new MethodExpression(methodName, arguments.toArray(Expression[]::new));
+    }
+
+    private Expression parseArray(int start, String name) {
+        int[] indexArray = new int[2];
+        FilterPredicate[] filters = null;
+        Slice[] slices = null;
+        int count = 0;
+        while (consume('[')) {
+            if (count == indexArray.length) {
+                indexArray = Arrays.copyOf(indexArray, count << 1);
+                if (filters != null) {
+                    filters = Arrays.copyOf(filters, count << 1);
+                }
+                if (slices != null) {
+                    slices = Arrays.copyOf(slices, count << 1);
+                }
+            }
+            if (consume('?')) {
+                if (filters == null) {
+                    filters = new FilterPredicate[indexArray.length];
+                }
+                filters[count] = parseFilterPredicate();
+                indexArray[count++] = ArrayExpression.WILDCARD;
+            } else if (consume('*')) {
+                indexArray[count++] = ArrayExpression.WILDCARD;
+            } else {
+                final int index = at(':') ? 0 : scanIndex();
+                if (consume(':')) {
+                    if (slices == null) {
+                        slices = new Slice[indexArray.length];
+                    }
+                    slices[count] = new Slice(index, at(']') ? Slice.OPEN_END : scanIndex());
+                    indexArray[count++] = ArrayExpression.SLICE;
+                } else {
+                    indexArray[count++] = index;
+                }
+            }
+            expect(']');
+        }
+        return new ArrayExpression(
+                source.substring(start, position),
+                name,
+                Arrays.copyOf(indexArray, count),
+                filters == null ? null : Arrays.copyOf(filters, count),
+                slices == null ? null : Arrays.copyOf(slices, count)
+        );
+    }
+
+    private FilterPredicate parseFilterPredicate() {
+        final int start = position;
+        filterDepth++;
+        final FilterPredicate.Condition condition = parseOr();
+        filterDepth--;
+        return new FilterPredicate(source.substring(start, position).trim(), condition);
+    }
+
+    private FilterPredicate.Condition parseOr() {
+        final List<FilterPredicate.Condition> conditions = new ArrayList<>(2);
+        do {
+            conditions.add(parseAnd());
+        } while (consume("||"));
+        return conditions.size() == 1 ? conditions.get(0) : FilterPredicate.or(conditions.toArray(FilterPredicate.Condition[]::new));
+    }
+
+    private FilterPredicate.Condition parseAnd() {
+        final List<FilterPredicate.Condition> conditions = new ArrayList<>(2);
+        do {
+            conditions.add(parseUnary());
+        } while (consume("&&"));
+        return conditions.size() == 1 ? conditions.get(0) : FilterPredicate.and(conditions.toArray(FilterPredicate.Condition[]::new));
+    }
+
+    private FilterPredicate.Condition parseUnary() {
+        skipWhitespace();
+        final FilterPredicate.Condition condition;
+        if (consume('!')) {
+            condition = FilterPredicate.not(parseUnary());
+        } else if (consume('(')) {
+            condition = parseOr();
+            expect(')');
+        } else {
+            final FilterPredicate.Operand left = parseOperand();
+            skipWhitespace();
+            final FilterPredicate.Operator operator = scanOperator();
+            condition = operator == null ? FilterPredicate.truthy(left) : FilterPredicate.compare(left, operator, parseOperand());
+        }
+        skipWhitespace();
+        return condition;
+    }
+
+    private FilterPredicate.Operator scanOperator() {
+        for (FilterPredicate.Operator operator : FilterPredicate.Operator.values()) {
+            if (consume(operator.symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    private FilterPredicate.Operand parseOperand() {
+        skipWhitespace();
+        if (position == length) {
+            throw error("Unexpected end of expression");
+        }
+        final char c = source.charAt(position);
+        if (c == '\'' || c == '"') {
+            return FilterPredicate.literal(scanString(c));
+        } else if (isDigit(c) || (c == '-' && position + 1 < length && isDigit(source.charAt(position + 1)))) {
+            return FilterPredicate.literal(scanNumber());
+        } else if (consume('@')) {
+            return consume('.') ? FilterPredicate.path(parseExpression()) : FilterPredicate.self();
+        } else if (consumeKeyword("true")) {
+            return FilterPredicate.literal(Boolean.TRUE);
+        } else if (consumeKeyword("false")) {
+            return FilterPredicate.literal(Boolean.FALSE);
+        } else if (consumeKeyword("null")) {
+            return FilterPredicate.literal(null);
+        }
+        return FilterPredicate.path(parseExpression());
+    }
+
+    private String scanString(char quote) {
+        // 跳过引号
+        position++;
+        final StringBuilder sb = new StringBuilder();
+        while (position < length) {
+            final char c = source.charAt(position++);
+            if (c == quote) {
+                return sb.toString();
+            } else if (c == '\\' && position < length) {
+                sb.append(source.charAt(position++));
+            } else {
+                sb.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Object scanNumber() {
+        final int start = position;
+        consume('-');
+        boolean decimal = false;
+        while (position < length) {
+            final char c = source.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!isDigit(c) && !((c == '-' || c == '+') && decimal)) {
+                break;
+            }
+            position++;
+        }
+        final String text = source.substring(start, position);
+        try {
+            return decimal ? (Object) Double.valueOf(text) : (Object) Long.valueOf(text);
+        } catch (NumberFormatException e) {
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException ignored) {
+                throw error("Invalid number \"%s\"", text);
+            }
+        }
+    }
+
+    private boolean consumeKeyword(String keyword) {
+        final int end = position + keyword.length();
+        if (source.startsWith(keyword, position) && (end == length || !isNameChar(source.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private String scanName() {
+        final int start = position;
+        while (position < length && isNameChar(source.charAt(position))) {
+            position++;
+        }
+        return source.substring(start, position);
+    }
+
+    private boolean isNameChar(char c) {
+        switch (c) {
+            case '.':
+            case '[':
+            case ']':
+            case '(':
+            case ')':
+            case ',':
+                return false;
+            case '=':
+            case '!':
+            case '<':
+            case '>':
+            case '&':
+            case '|':
+            case '\'':
+            case '"':
+                return filterDepth == 0;
+            default:
+                return (depth == 0 && filterDepth == 0) || !Character.isWhitespace(c);
+        }
+    }
+
+    private int scanIndex() {
+        final boolean negative = consume('-');
+        final int start = position;
+        int value = 0;
+        while (position < length) {
+            final char c = source.charAt(position);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            if (value < 0) {
+                throw error("Index overflow");
+            }
+            position++;
+        }
+        if (position == start) {
+            throw position < length ? error("Expected index digit but found '%c'", source.charAt(position)) : error("Unexpected end of expression");
+        }
+        if (negative) {
+            // -2147483647及以下与通配、切片标记冲突
+            if (value == Integer.MAX_VALUE) {
+                throw error("Index overflow");
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private boolean consume(String token) {
+        if (source.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean at(char c) {
+        return position < length && source.charAt(position) == c;
+    }
+
+    private boolean consume(char c) {
+        if (position < length && source.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw position < length ? error("Expected '%c' but found '%c'", c, source.charAt(position)) : error("Expected '%c' but reached end of expression", c);
+        }
+    }
+
+    private ExpressionParseException error(String format, Object... objs) {
+        return new ExpressionParseException(position, source, String.format(format, objs));
+    }
+}
@@ -1,21 +1,163 @@
 package com.github.developframework.expression;
 
 import com.github.developframework.expression.exception.ExpressionException;
-import org.apache.commons.lang3.reflect.FieldUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 
-import java.lang.reflect.Field;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * 表达式取值工具
+ * 表达式取值/写入工具
  *
  * @author qiushui
  */
 @SuppressWarnings("unchecked")
 public abstract class ExpressionUtils {
 
+    /* 并行批量取值时每个分片的最小元素数 */
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    /* 表达式解析缓存 */
+    private static volatile ExpressionCache expressionCache = new ExpressionCache();
+
+    /* 提升阈值，表达式解释执行达到该次数后提升为MethodHandle计划，小于等于0时关闭 */
+    private static volatile int compileThreshold = Integer.getInteger("expression.compile.threshold", 0);
+
+    /* 运行时指标 */
+    private static volatile ExpressionMetrics metrics = initialMetrics();
+
+    public static ExpressionCache getExpressionCache() {
+        return expressionCache;
+    }
+
+    /**
+     * 替换表达式解析缓存，可用于调整容量
+     *
+     * @param expressionCache 表达式解析缓存
+     */
+    public static void setExpressionCache(ExpressionCache expressionCache) {
+        if (expressionCache == null) {
+            throw new ExpressionException("can't set null to expression cache.");
+        }
+        ExpressionUtils.expressionCache = expressionCache;
+    }
+
+    public static int getCompileThreshold() {
+        return compileThreshold;
+    }
+
+    /**
+     * 设置提升阈值：表达式解释执行N次后提升为MethodHandle计划
+     * 开启后每个表达式统计解释执行次数，达到阈值后以{@link Expression#compile()}构建{@link CompiledExpression}，之后的取值走该计划；
+     * 这里的"编译"只是组装MethodHandle调用链，不生成字节码或类，热点代码的内联由JIT完成；
+     * 计划中的内联缓存遇到未链接过的接收者类型时回退到通用查找
+     *
+     * @param compileThreshold 阈值，小于等于0时关闭
+     */
+    public static void setCompileThreshold(int compileThreshold) {
+        ExpressionUtils.compileThreshold = compileThreshold;
+    }
+
+    /**
+     * 丢弃所有规范化表达式上的编译状态
+     * 编译结果中的内联缓存、方法调用点和写入器按接收者类型链接，强引用求值过的类型，而表达式又被解析缓存持有；
+     * 卸载类加载器（Web应用重新部署、插件卸载等）前调用本方法，表达式不再阻止这些类型被回收，之后的求值重新链接。
+     * {@link ExpressionCache#clear()}只清空解析缓存，不影响其它地方引用的表达式；
+     * 调用方持有的{@link CompiledExpression}、{@link BoundExpression}、{@link Projection}等对象不受影响，需自行丢弃
+     */
+    public static void clearCompiledState() {
+        EmptyExpression.INSTANCE.clearCompiledState();
+    }
+
+    public static ExpressionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 安装运行时指标，{@link ExpressionMetrics#NOOP}表示关闭
+     * 指标覆盖解析、访问器与方法解析、内联缓存退化，以及getValue和{@link CompiledExpression#getValue(Object)}的异常与采样耗时
+     *
+     * @param metrics 运行时指标
+     */
+    public static void setMetrics(ExpressionMetrics metrics) {
+        if (metrics == null) {
+            throw new ExpressionException("can't set null to metrics.");
+        }
+        ExpressionUtils.metrics = metrics;
+    }
+
+    static ExpressionMetrics metrics() {
+        return metrics;
+    }
+
+    private static ExpressionMetrics initialMetrics() {
+        if (!Boolean.getBoolean("expression.metrics.enabled")) {
+            return ExpressionMetrics.NOOP;
+        }
+        final DefaultExpressionMetrics defaultMetrics = new DefaultExpressionMetrics();
+        defaultMetrics.registerMBean();
+        return defaultMetrics;
+    }
+
+    public static SetIndexStrategy getSetIndexStrategy() {
+        return CollectionIndexer.getSetIndexStrategy();
+    }
+
+    /**
+     * 设置无序Set的索引策略，默认按迭代顺序
+     *
+     * @param setIndexStrategy 索引策略
+     */
+    public static void setSetIndexStrategy(SetIndexStrategy setIndexStrategy) {
+        if (setIndexStrategy == null) {
+            throw new ExpressionException("can't set null to set index strategy.");
+        }
+        CollectionIndexer.setSetIndexStrategy(setIndexStrategy);
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expressionValue 表达式字符串
+     * @return 编译后的表达式
+     */
+    public static CompiledExpression compile(String expressionValue) {
+        return expressionCache.get(expressionValue).compile();
+    }
+
+    /**
+     * 按根类型绑定表达式
+     * 绑定时检查每个节点在静态类型上是否存在，属性不存在、对非数组和Collection取索引、方法不存在时抛出异常
+     *
+     * @param rootType        根类型，可以是参数化类型，例如字段的泛型类型
+     * @param expressionValue 表达式字符串
+     * @return 绑定的表达式
+     */
+    public static BoundExpression bind(Type rootType, String expressionValue) {
+        return bind(rootType, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 按根类型绑定表达式
+     *
+     * @param rootType   根类型
+     * @param expression 表达式
+     * @return 绑定的表达式
+     */
+    public static BoundExpression bind(Type rootType, Expression expression) {
+        if (rootType == null || expression == null) {
+            throw new ExpressionException("can't bind null root type or expression.");
+        }
+        return ExpressionBinder.bind(rootType, expression);
+    }
+
     /**
      * 获取值
      *
@@ -24,7 +166,7 @@ public abstract class ExpressionUtils {
      * @return 值
      */
     public static Object getValue(Object instance, String expressionValue) {
-        return getValue(instance, Expression.parse(expressionValue));
+        return getValue(instance, expressionCache.get(expressionValue));
     }
 
     /**
@@ -37,7 +179,7 @@ public abstract class ExpressionUtils {
      * @return 值
      */
     public static <T> T getValue(Object instance, String expressionValue, Class<T> targetClass) {
-        return getValue(instance, Expression.parse(expressionValue), targetClass);
+        return getValue(instance, expressionCache.get(expressionValue), targetClass);
     }
 
     /**
@@ -67,124 +209,935 @@ public abstract class ExpressionUtils {
         if (expression == null || expression == EmptyExpression.INSTANCE) {
             return instance;
         }
-        Object value = instance;
-        for (Expression singleExpression : expression.expressionTree()) {
+        final ExpressionMetrics currentMetrics = metrics;
+        if (currentMetrics != ExpressionMetrics.NOOP) {
+            return getValueObserved(instance, expression, currentMetrics);
+        }
+        return getValueUnobserved(instance, expression);
+    }
+
+    /**
+     * 记录异常和采样耗时的取值
+     */
+    private static Object getValueObserved(Object instance, Expression expression, ExpressionMetrics currentMetrics) {
+        final boolean sampled = currentMetrics.sampleEvaluation();
+        final long start = sampled ? System.nanoTime() : 0L;
+        try {
+            final Object value = getValueUnobserved(instance, expression);
+            if (sampled) {
+                currentMetrics.onEvaluation(expression, System.nanoTime() - start);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            currentMetrics.onException(expression, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 不经过指标的取值，用于嵌套求值（方法参数），避免同一个异常被重复记录
+     */
+    private static Object getValueUnobserved(Object instance, Expression expression) {
+        if (instance == null) {
+            return null;
+        }
+        if (expression == null || expression == EmptyExpression.INSTANCE) {
+            return instance;
+        }
+        final int threshold = compileThreshold;
+        if (threshold > 0) {
+            final CompiledExpression compiled = expression.tierUp(threshold);
+            if (compiled != null) {
+                return compiled.evaluate(instance, instance);
+            }
+        }
+        return evaluate(instance, expression, false);
+    }
+
+    /**
+     * 尝试获取值，属性不存在或索引越界时不抛出异常，不受{@link MissPolicy}影响
+     * 通配展开的各段同样宽松求值，属性不存在或索引越界的元素得到null；过滤条件仍按正常方式求值
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值，属性不存在、索引越界或值为null时为空
+     */
+    public static Optional<Object> tryGetValue(Object instance, String expressionValue) {
+        return tryGetValue(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 尝试获取值，属性不存在或索引越界时不抛出异常，不受{@link MissPolicy}影响
+     * 通配展开的各段同样宽松求值，属性不存在或索引越界的元素得到null；过滤条件仍按正常方式求值
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值，属性不存在、索引越界或值为null时为空
+     */
+    public static Optional<Object> tryGetValue(Object instance, Expression expression) {
+        return Optional.ofNullable(evaluate(instance, expression, true));
+    }
+
+    /**
+     * 获取值，属性不存在、索引越界或值为null时返回默认值，宽松求值的范围与{@link #tryGetValue(Object, Expression)}相同
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @param defaultValue    默认值
+     * @param <T>             值类型
+     * @return 值
+     */
+    public static <T> T getValueOrDefault(Object instance, String expressionValue, T defaultValue) {
+        return getValueOrDefault(instance, expressionCache.get(expressionValue), defaultValue);
+    }
+
+    /**
+     * 获取值，属性不存在、索引越界或值为null时返回默认值，宽松求值的范围与{@link #tryGetValue(Object, Expression)}相同
+     *
+     * @param instance     实例
+     * @param expression   表达式
+     * @param defaultValue 默认值
+     * @param <T>          值类型
+     * @return 值
+     */
+    public static <T> T getValueOrDefault(Object instance, Expression expression, T defaultValue) {
+        final Object value = evaluate(instance, expression, true);
+        return value == null ? defaultValue : (T) value;
+    }
+
+    /**
+     * 解释执行表达式
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @param lenient    属性不存在或索引越界时是否直接返回null
+     * @return 值
+     */
+    static Object evaluate(Object instance, Expression expression, boolean lenient) {
+        if (instance == null) {
+            return null;
+        }
+        if (expression == null) {
+            return instance;
+        }
+        if (expression.hasWildcard()) {
+            return expression.wildcardPath().collect(instance, instance, lenient);
+        }
+        final EvaluationPlan plan = expression.evaluationPlan();
+        if (plan != null) {
+            return plan.evaluate(instance, lenient);
+        }
+        return evaluate(instance, instance, expression, lenient);
+    }
+
+    /**
+     * 以中间值为起点解释执行不含通配的表达式，方法参数从根对象取值
+     *
+     * @param value        中间值
+     * @param rootInstance 根对象
+     * @param expression   表达式
+     * @param lenient      属性不存在或索引越界时是否直接返回null
+     * @return 值
+     */
+    static Object evaluate(Object value, Object rootInstance, Expression expression, boolean lenient) {
+        for (Expression singleExpression : expression.nodes()) {
             if (value == null) {
                 break;
             } else if (singleExpression instanceof ObjectExpression) {
-                value = getValueFromObjectOrMap(value, singleExpression.getName());
+                value = getValueFromObjectOrMap(value, singleExpression.getName(), lenient);
             } else if (singleExpression instanceof ArrayExpression) {
-                value = getValueFromArray(value, (ArrayExpression) singleExpression);
+                value = getValueFromArray(value, (ArrayExpression) singleExpression, lenient);
             } else if (singleExpression instanceof MethodExpression) {
-                value = getValueFromMethod(instance, value, (MethodExpression) singleExpression);
+                value = getValueFromMethod(rootInstance, value, (MethodExpression) singleExpression, lenient);
             }
         }
         return value;
     }
 
     /**
-     * 从对象或Map中获取值
+     * 获取属性不存在时的处理策略
      *
-     * @param instance     实例
-     * @param propertyName 属性名称
-     * @return 值
+     * @return 处理策略
      */
-    @SuppressWarnings("rawtypes")
-    private static Object getValueFromObjectOrMap(Object instance, String propertyName) {
-        Class<?> clazz = instance.getClass();
-        if (Map.class.isAssignableFrom(clazz)) {
-            return ((Map) instance).get(propertyName);
+    public static MissPolicy getMissPolicy() {
+        return PropertyAccessors.getMissPolicy();
+    }
+
+    /**
+     * 设置属性不存在时的处理策略，默认抛出异常
+     * 对getValue/getInt等取值方法以及编译后的表达式生效，写入时属性不存在总是抛出异常
+     *
+     * @param missPolicy 处理策略
+     */
+    public static void setMissPolicy(MissPolicy missPolicy) {
+        if (missPolicy == null) {
+            throw new ExpressionException("can't set null to miss policy.");
         }
-        return getFieldValue(getDeclaredField(clazz, propertyName), instance);
+        PropertyAccessors.setMissPolicy(missPolicy);
+    }
+
+    public static Object getMissDefaultValue() {
+        return PropertyAccessors.getMissDefaultValue();
     }
 
     /**
-     * 从数组中获取值
+     * 设置{@link MissPolicy#RETURN_DEFAULT}策略下属性不存在时返回的默认值，默认为null
+     *
+     * @param missDefaultValue 默认值
+     */
+    public static void setMissDefaultValue(Object missDefaultValue) {
+        PropertyAccessors.setMissDefaultValue(missDefaultValue);
+    }
+
+    /**
+     * 注册属性访问器表
+     * 通过ServiceLoader发现的访问器表无需注册，该方法用于无法使用ServiceLoader的环境，应在首次对该类型求值前调用
+     *
+     * @param table 属性访问器表
+     */
+    public static void registerAccessorTable(PropertyAccessorTable table) {
+        if (table == null || table.getType() == null) {
+            throw new ExpressionException("can't register null accessor table.");
+        }
+        PropertyAccessors.registerTable(table);
+    }
+
+    /**
+     * 注销属性访问器表，之后该类型的属性重新由解析器解析
+     * 已编译表达式和绑定表达式缓存的访问器不受影响
+     *
+     * @param type 类型
+     * @return 该类型存在访问器表时返回true
+     */
+    public static boolean unregisterAccessorTable(Class<?> type) {
+        if (type == null) {
+            throw new ExpressionException("can't unregister accessor table of null type.");
+        }
+        return PropertyAccessors.unregisterTable(type);
+    }
+
+    /**
+     * 添加属性解析器，优先于通过ServiceLoader发现的解析器和内置解析器
+     * 每个类型的解析器在首次访问该类型的属性时选定，应在首次求值前调用
+     *
+     * @param resolver 属性解析器
+     */
+    public static void addPropertyResolver(PropertyResolver resolver) {
+        if (resolver == null) {
+            throw new ExpressionException("can't add null property resolver.");
+        }
+        PropertyResolvers.add(resolver);
+    }
+
+    /**
+     * 移除通过{@link #addPropertyResolver}添加或以ServiceLoader登记的属性解析器
+     * 选定了该解析器的类型在下次访问时重新选择解析器；已编译表达式和绑定表达式缓存的访问器不受影响
+     *
+     * @param resolver 属性解析器
+     * @return 解析器存在时返回true
+     */
+    public static boolean removePropertyResolver(PropertyResolver resolver) {
+        if (resolver == null) {
+            throw new ExpressionException("can't remove null property resolver.");
+        }
+        return PropertyResolvers.remove(resolver);
+    }
+
+    /**
+     * 惰性获取值流
+     * 通配表达式 users[*].name 在遍历时逐个展开元素，不创建中间集合；不含通配的表达式返回只有一个值的流
      *
      * @param instance        实例
-     * @param arrayExpression 表达式
-     * @return 值
+     * @param expressionValue 表达式字符串
+     * @return 值流
      */
-    @SuppressWarnings("rawtypes")
-    private static Object getValueFromArray(Object instance, ArrayExpression arrayExpression) {
-        Object arrayObject = instance;
-        if (arrayExpression.hasPropertyName()) {
-            arrayObject = getValueFromObjectOrMap(instance, arrayExpression.getName());
+    public static Stream<Object> stream(Object instance, String expressionValue) {
+        return stream(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 惰性获取值流
+     * 通配表达式 users[*].name 在遍历时逐个展开元素，不创建中间集合；不含通配的表达式返回只有一个值的流
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值流
+     */
+    public static Stream<Object> stream(Object instance, Expression expression) {
+        if (instance == null) {
+            return Stream.empty();
         }
-        for (int i : arrayExpression.getIndexArray()) {
-            if (arrayObject == null) {
-                break;
-            } else {
-                Class<?> clazz = arrayObject.getClass();
-                if (clazz.isArray()) {
-                    arrayObject = ((Object[]) arrayObject)[i];
-                } else if (List.class.isAssignableFrom(clazz)) {
-                    arrayObject = ((List) arrayObject).get(i);
-                } else if (Set.class.isAssignableFrom(clazz)) {
-                    ArrayList arrayList = new ArrayList<>((Set) arrayObject);
-                    arrayList.sort(Comparator.comparingInt(Object::hashCode));
-                    arrayObject = arrayList.get(i);
-                } else {
-                    throw new ExpressionException("The instance \"%s\" type \"%s\" is not array or List/Set", instance.toString(), clazz);
-                }
-            }
+        if (expression == null || !expression.hasWildcard()) {
+            return Stream.of(getValue(instance, expression));
         }
-        return arrayObject;
+        return expression.wildcardPath().stream(instance);
     }
 
-    private static Object getValueFromMethod(Object rootInstance, Object instance, MethodExpression methodExpression) {
-        final Object[] arguments = Stream
-                .of(methodExpression.getArguments())
-                .map(argumentExpression -> getValue(rootInstance, argumentExpression))
-                .toArray(Object[]::new);
-        try {
-            return MethodUtils.invokeMethod(instance, true, methodExpression.getName(), arguments);
-        } catch (Exception e) {
-            throw new ExpressionException("%s invoke failed: %s", methodExpression.getName(), e.getMessage());
+    /**
+     * 惰性获取值迭代器，见{@link #stream(Object, Expression)}
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值迭代器
+     */
+    public static Iterator<Object> iterator(Object instance, Expression expression) {
+        return stream(instance, expression).iterator();
+    }
+
+    /**
+     * 获取第一个值，通配或过滤表达式 items[?price > 100] 取到第一个值后即停止遍历；不含通配的表达式等同于getValue
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值，没有值时返回null
+     */
+    public static Object findFirst(Object instance, String expressionValue) {
+        return findFirst(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 获取第一个值，见{@link #findFirst(Object, String)}
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值，没有值时返回null
+     */
+    public static Object findFirst(Object instance, Expression expression) {
+        if (instance == null) {
+            return null;
+        }
+        if (expression == null || !expression.hasWildcard()) {
+            return getValue(instance, expression);
         }
+        return expression.wildcardPath().first(instance);
     }
 
-    private static Field getDeclaredField(final Class<?> clazz, String propertyName) {
-        Class<?> temp = clazz;
-        do {
-            Field field = FieldUtils.getDeclaredField(temp, propertyName, true);
-            if (field != null) {
-                return field;
-            } else {
-                temp = temp.getSuperclass();
-            }
-        } while (temp != Object.class);
-        throw new ExpressionException("No such field \"%s\" in class \"%s\"", propertyName, clazz.getName());
+    /**
+     * 统计值的数量，不创建结果列表；与{@link #stream(Object, Expression)}一致，不含通配的表达式返回1
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 数量
+     */
+    public static int count(Object instance, String expressionValue) {
+        return count(instance, expressionCache.get(expressionValue));
     }
 
-    private static Object getFieldValue(Field field, Object instance) {
-        String getterMethodName = getGetterMethodName(field.getName(), field.getType());
-        try {
-            return MethodUtils.invokeMethod(instance, true, getterMethodName);
-        } catch (NoSuchMethodException e) {
-            try {
-                return field.get(instance);
-            } catch (IllegalAccessException e1) {
-                throw new ExpressionException("Illegal access field \"%s\" in class \"%s\"", field.getName(), instance.getClass().getName());
-            }
-        } catch (Exception e) {
-            throw new ExpressionException("%s invoke failed.", getterMethodName);
+    /**
+     * 统计值的数量，见{@link #count(Object, String)}
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 数量
+     */
+    public static int count(Object instance, Expression expression) {
+        if (instance == null) {
+            return 0;
         }
+        if (expression == null || !expression.hasWildcard()) {
+            return 1;
+        }
+        return expression.wildcardPath().count(instance);
     }
 
-    private static String getGetterMethodName(String property, Class<?> javaType) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(property);
-        if (Character.isLowerCase(sb.charAt(0))) {
-            if (sb.length() == 1 || !Character.isUpperCase(sb.charAt(1))) {
-                sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
-            }
+    /**
+     * 返回第一个满足条件的元素的下标，表达式必须以唯一的过滤或通配索引结尾，示例： items[?price > 100]
+     * 找到第一个满足条件的元素后即停止遍历
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 下标，没有满足条件的元素时返回-1
+     */
+    public static int indexOf(Object instance, String expressionValue) {
+        return indexOf(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 返回第一个满足条件的元素的下标，见{@link #indexOf(Object, String)}
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 下标，没有满足条件的元素时返回-1
+     */
+    public static int indexOf(Object instance, Expression expression) {
+        if (expression == null) {
+            throw new ExpressionException("can't find index with null expression.");
         }
-        if (javaType == boolean.class || javaType == Boolean.class) {
-            sb.insert(0, "is");
-        } else {
-            sb.insert(0, "get");
+        return instance == null ? -1 : expression.wildcardPath().indexOf(instance);
+    }
+
+    /**
+     * 获取int值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值
+     */
+    public static int getInt(Object instance, String expressionValue) {
+        return getInt(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 获取int值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    @SuppressWarnings("rawtypes")
+    public static int getInt(Object instance, Expression expression) {
+        final Object parent = getTerminalParent(instance, expression);
+        if (parent != null) {
+            if (expression instanceof ObjectExpression) {
+                return PropertyAccessors.isMap(parent.getClass())
+                        ? Primitives.toInt(((Map) parent).get(expression.getName()))
+                        : PropertyAccessors.getAccessor(parent.getClass(), expression.getName()).getInt(parent);
+            } else if (expression instanceof ArrayExpression) {
+                return Primitives.getIntElement(parent, lastIndex((ArrayExpression) expression));
+            }
+        }
+        return Primitives.toInt(parent);
+    }
+
+    /**
+     * 获取long值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值
+     */
+    public static long getLong(Object instance, String expressionValue) {
+        return getLong(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 获取long值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    @SuppressWarnings("rawtypes")
+    public static long getLong(Object instance, Expression expression) {
+        final Object parent = getTerminalParent(instance, expression);
+        if (parent != null) {
+            if (expression instanceof ObjectExpression) {
+                return PropertyAccessors.isMap(parent.getClass())
+                        ? Primitives.toLong(((Map) parent).get(expression.getName()))
+                        : PropertyAccessors.getAccessor(parent.getClass(), expression.getName()).getLong(parent);
+            } else if (expression instanceof ArrayExpression) {
+                return Primitives.getLongElement(parent, lastIndex((ArrayExpression) expression));
+            }
+        }
+        return Primitives.toLong(parent);
+    }
+
+    /**
+     * 获取double值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值
+     */
+    public static double getDouble(Object instance, String expressionValue) {
+        return getDouble(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 获取double值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    @SuppressWarnings("rawtypes")
+    public static double getDouble(Object instance, Expression expression) {
+        final Object parent = getTerminalParent(instance, expression);
+        if (parent != null) {
+            if (expression instanceof ObjectExpression) {
+                return PropertyAccessors.isMap(parent.getClass())
+                        ? Primitives.toDouble(((Map) parent).get(expression.getName()))
+                        : PropertyAccessors.getAccessor(parent.getClass(), expression.getName()).getDouble(parent);
+            } else if (expression instanceof ArrayExpression) {
+                return Primitives.getDoubleElement(parent, lastIndex((ArrayExpression) expression));
+            }
+        }
+        return Primitives.toDouble(parent);
+    }
+
+    /**
+     * 获取boolean值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值
+     */
+    public static boolean getBoolean(Object instance, String expressionValue) {
+        return getBoolean(instance, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 获取boolean值，原始类型的getter和数组元素不经过装箱
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    @SuppressWarnings("rawtypes")
+    public static boolean getBoolean(Object instance, Expression expression) {
+        final Object parent = getTerminalParent(instance, expression);
+        if (parent != null) {
+            if (expression instanceof ObjectExpression) {
+                return PropertyAccessors.isMap(parent.getClass())
+                        ? Primitives.toBoolean(((Map) parent).get(expression.getName()))
+                        : PropertyAccessors.getAccessor(parent.getClass(), expression.getName()).getBoolean(parent);
+            } else if (expression instanceof ArrayExpression) {
+                return Primitives.getBooleanElement(parent, lastIndex((ArrayExpression) expression));
+            }
+        }
+        return Primitives.toBoolean(parent);
+    }
+
+    /**
+     * 写入值
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @param value           值
+     */
+    public static void setValue(Object instance, String expressionValue, Object value) {
+        setValue(instance, expressionCache.get(expressionValue), value, false);
+    }
+
+    /**
+     * 写入值
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @param value      值
+     */
+    public static void setValue(Object instance, Expression expression, Object value) {
+        setValue(instance, expression, value, false);
+    }
+
+    /**
+     * 写入值
+     * 支持字段/setter方法、Map、List和数组（包括原始类型数组）的索引写入，数值按目标类型转换
+     * 开启自动创建时，为null的中间节点按下一节点创建：索引创建ArrayList，属性创建LinkedHashMap，
+     * 声明为数组或具体Bean类型的属性按声明类型创建，List写入越界的索引时以null补齐
+     *
+     * @param instance      实例
+     * @param expression    表达式
+     * @param value         值
+     * @param createMissing 是否自动创建中间节点
+     */
+    public static void setValue(Object instance, Expression expression, Object value, boolean createMissing) {
+        if (instance == null) {
+            throw new ExpressionException("can't set value to null instance.");
+        }
+        if (expression == null || expression == EmptyExpression.INSTANCE) {
+            throw new ExpressionException("can't set value with empty expression.");
+        }
+        expression.writer().setValue(instance, value, createMissing);
+    }
+
+    /**
+     * 批量写入值
+     *
+     * @param instance      实例
+     * @param values        表达式字符串 -> 值，按Map的迭代顺序写入
+     * @param createMissing 是否自动创建中间节点
+     */
+    public static void setValues(Object instance, Map<String, ?> values, boolean createMissing) {
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            setValue(instance, expressionCache.get(entry.getKey()), entry.getValue(), createMissing);
+        }
+    }
+
+    /**
+     * 批量写入值，按Map的迭代顺序写入
+     *
+     * @param instance 实例
+     * @param values   表达式 -> 值
+     * @param createMissing 是否自动创建中间节点
+     */
+    public static void setValues(Object instance, Collection<? extends Map.Entry<? extends Expression, ?>> values, boolean createMissing) {
+        for (Map.Entry<? extends Expression, ?> entry : values) {
+            setValue(instance, entry.getKey(), entry.getValue(), createMissing);
+        }
+    }
+
+    /**
+     * 异步获取值，方法调用在默认执行器上执行（运行时支持时为虚拟线程）
+     *
+     * @param instance        实例
+     * @param expressionValue 表达式字符串
+     * @return 值
+     */
+    public static CompletableFuture<Object> getValueAsync(Object instance, String expressionValue) {
+        return getValueAsync(instance, expressionCache.get(expressionValue), AsyncEvaluator.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 异步获取值，方法调用在默认执行器上执行（运行时支持时为虚拟线程）
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    public static CompletableFuture<Object> getValueAsync(Object instance, Expression expression) {
+        return getValueAsync(instance, expression, AsyncEvaluator.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 异步获取值
+     * 方法调用在执行器上执行，互不依赖的接收者与方法参数并发求值，方法返回的CompletionStage被组合而不阻塞等待
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @param executor   执行方法调用的执行器
+     * @return 值
+     */
+    public static CompletableFuture<Object> getValueAsync(Object instance, Expression expression, Executor executor) {
+        if (expression == null) {
+            return CompletableFuture.completedFuture(instance);
+        }
+        return expression.asyncEvaluator().evaluate(instance, executor);
+    }
+
+    /**
+     * 批量获取值，对每个根对象求值同一个表达式
+     * 表达式只编译一次，属性访问器在整个批次中复用
+     *
+     * @param instances       根对象
+     * @param expressionValue 表达式字符串
+     * @return 值列表，与根对象一一对应
+     */
+    public static List<Object> getValues(Iterable<?> instances, String expressionValue) {
+        return getValues(instances, expressionCache.get(expressionValue));
+    }
+
+    /**
+     * 批量获取值，对每个根对象求值同一个表达式
+     * 表达式只编译一次，属性访问器在整个批次中复用
+     *
+     * @param instances  根对象
+     * @param expression 表达式
+     * @return 值列表，与根对象一一对应
+     */
+    public static List<Object> getValues(Iterable<?> instances, Expression expression) {
+        final CompiledExpression compiled = compile(expression);
+        final List<Object> values = instances instanceof Collection ? new ArrayList<>(((Collection<?>) instances).size()) : new ArrayList<>();
+        for (Object instance : instances) {
+            values.add(compiled.getValue(instance));
+        }
+        return values;
+    }
+
+    /**
+     * 在公共ForkJoinPool上并行批量获取值
+     *
+     * @param instances  根对象
+     * @param expression 表达式
+     * @return 值列表，与根对象一一对应
+     */
+    public static List<Object> getValuesParallel(Collection<?> instances, Expression expression) {
+        return getValues(instances, expression, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定执行器上并行批量获取值
+     * 根对象被切分成连续的分片，每个分片不少于{@value #MIN_CHUNK_SIZE}个元素，数量不足时在当前线程执行
+     *
+     * @param instances  根对象
+     * @param expression 表达式
+     * @param executor   执行器
+     * @return 值列表，与根对象一一对应，长度固定
+     */
+    public static List<Object> getValues(Collection<?> instances, Expression expression, Executor executor) {
+        final CompiledExpression compiled = compile(expression);
+        final Object[] roots = instances.toArray();
+        final Object[] values = new Object[roots.length];
+        final int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        final int chunkCount = Math.min(parallelism * 4, roots.length / MIN_CHUNK_SIZE);
+        if (chunkCount <= 1) {
+            evaluate(compiled, roots, values, 0, roots.length);
+        } else {
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[chunkCount];
+            final int chunkSize = (roots.length + chunkCount - 1) / chunkCount;
+            for (int i = 0; i < chunkCount; i++) {
+                final int from = i * chunkSize;
+                final int to = Math.min(roots.length, from + chunkSize);
+                futures[i] = CompletableFuture.runAsync(() -> evaluate(compiled, roots, values, from, to), executor);
+            }
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    private static void evaluate(CompiledExpression compiled, Object[] roots, Object[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = compiled.getValue(roots[i]);
+        }
+    }
+
+    /**
+     * 将根对象流映射为值流，并行流会在各个分片上并行求值
+     *
+     * @param instances  根对象流
+     * @param expression 表达式
+     * @return 值流
+     */
+    public static Stream<Object> map(Stream<?> instances, Expression expression) {
+        final CompiledExpression compiled = compile(expression);
+        return instances.map(compiled::getValue);
+    }
+
+    /**
+     * 将根对象Spliterator映射为值Spliterator，保留SIZED/SUBSIZED/ORDERED等特征，便于切分后并行处理
+     *
+     * @param instances  根对象
+     * @param expression 表达式
+     * @return 值Spliterator
+     */
+    public static Spliterator<Object> spliterator(Spliterator<?> instances, Expression expression) {
+        return new EvaluatingSpliterator(instances, compile(expression));
+    }
+
+    /**
+     * 将根对象Spliterator映射为值流
+     *
+     * @param instances  根对象
+     * @param expression 表达式
+     * @param parallel   是否并行
+     * @return 值流
+     */
+    public static Stream<Object> stream(Spliterator<?> instances, Expression expression, boolean parallel) {
+        return StreamSupport.stream(spliterator(instances, expression), parallel);
+    }
+
+    private static CompiledExpression compile(Expression expression) {
+        return (expression == null ? EmptyExpression.INSTANCE : expression).compile();
+    }
+
+    /**
+     * 计算末端读取之前的值
+     * 对象表达式返回属性所属的对象，数组表达式返回最后一维索引之前的容器，其余（包括末尾是切片）返回表达式的值
+     *
+     * @param instance   实例
+     * @param expression 表达式
+     * @return 值
+     */
+    private static Object getTerminalParent(Object instance, Expression expression) {
+        if (!(expression instanceof ObjectExpression || expression instanceof ArrayExpression) || expression.hasWildcard()
+                || (expression instanceof ArrayExpression && lastIndex((ArrayExpression) expression) == ArrayExpression.SLICE)) {
+            return getValue(instance, expression);
+        }
+        Object value = getValue(instance, expression.getParentExpression());
+        if (value != null && expression instanceof ArrayExpression) {
+            final ArrayExpression arrayExpression = (ArrayExpression) expression;
+            if (arrayExpression.hasPropertyName()) {
+                value = getValueFromObjectOrMap(value, arrayExpression.getName());
+            }
+            for (int i = 0, last = arrayExpression.indexArray.length - 1; i < last && value != null; i++) {
+                value = getElement(value, arrayExpression, i);
+            }
+        }
+        return value;
+    }
+
+    static int lastIndex(ArrayExpression arrayExpression) {
+        return arrayExpression.indexArray[arrayExpression.indexArray.length - 1];
+    }
+
+    /**
+     * 从对象或Map中获取值
+     *
+     * @param instance     实例
+     * @param propertyName 属性名称
+     * @return 值
+     */
+    static Object getValueFromObjectOrMap(Object instance, String propertyName) {
+        return getValueFromObjectOrMap(instance, propertyName, false);
+    }
+
+    /**
+     * 从对象或Map中获取值，由实例类型选定的属性解析器解析
+     *
+     * @param instance     实例
+     * @param propertyName 属性名称
+     * @param lenient      属性不存在时是否直接返回null
+     * @return 值
+     */
+    @SuppressWarnings("rawtypes")
+    static Object getValueFromObjectOrMap(Object instance, String propertyName, boolean lenient) {
+        if (PropertyAccessors.isMap(instance.getClass())) {
+            return ((Map) instance).get(propertyName);
+        }
+        final PropertyAccessor accessor = PropertyAccessors.getAccessor(instance.getClass(), propertyName);
+        if (lenient && accessor.isMissing()) {
+            return null;
+        }
+        return accessor.getValue(instance);
+    }
+
+    /**
+     * 从数组中获取值
+     *
+     * @param instance        实例
+     * @param arrayExpression 表达式
+     * @param lenient         属性不存在或索引越界时是否直接返回null
+     * @return 值
+     */
+    static Object getValueFromArray(Object instance, ArrayExpression arrayExpression, boolean lenient) {
+        Object arrayObject = instance;
+        if (arrayExpression.hasPropertyName()) {
+            arrayObject = getValueFromObjectOrMap(instance, arrayExpression.getName(), lenient);
+        }
+        for (int i = 0; i < arrayExpression.indexArray.length; i++) {
+            if (arrayObject == null) {
+                break;
+            } else if (lenient && isOutOfRange(arrayObject, arrayExpression.indexArray[i])) {
+                return null;
+            } else {
+                arrayObject = getElement(arrayObject, arrayExpression, i);
+            }
+        }
+        return arrayObject;
+    }
+
+    /**
+     * 判断数组或集合的索引是否越界，切片和通配不会越界
+     *
+     * @param container 数组或集合
+     * @param index     索引，负数从末尾计算
+     * @return 判断结果，容器不是数组或集合时返回false，由读取处抛出异常
+     */
+    @SuppressWarnings("rawtypes")
+    private static boolean isOutOfRange(Object container, int index) {
+        if (index == ArrayExpression.SLICE || index == ArrayExpression.WILDCARD) {
+            return false;
+        }
+        final int size;
+        if (container.getClass().isArray()) {
+            size = Array.getLength(container);
+        } else if (container instanceof Collection) {
+            size = ((Collection) container).size();
+        } else {
+            return false;
+        }
+        final int position = index < 0 ? index + size : index;
+        return position < 0 || position >= size;
+    }
+
+    /**
+     * 按数组表达式的第i个索引取得元素或切片
+     *
+     * @param arrayObject     数组或集合
+     * @param arrayExpression 数组表达式
+     * @param i               索引位置
+     * @return 元素或切片视图
+     */
+    static Object getElement(Object arrayObject, ArrayExpression arrayExpression, int i) {
+        final int index = arrayExpression.indexArray[i];
+        return index == ArrayExpression.SLICE ? arrayExpression.sliceAt(i).apply(arrayObject) : getElement(arrayObject, index);
+    }
+
+    /**
+     * 把负索引换算为从头计算的索引
+     *
+     * @param container 数组或集合
+     * @param index     索引，负数从末尾计算
+     * @return 索引，越界时原样返回由读取处抛出异常
+     */
+    @SuppressWarnings("rawtypes")
+    static int absoluteIndex(Object container, int index) {
+        if (index >= 0) {
+            return index;
+        } else if (container.getClass().isArray()) {
+            return index + Array.getLength(container);
+        } else if (container instanceof Collection) {
+            return index + ((Collection) container).size();
+        }
+        return index;
+    }
+
+    /**
+     * 按索引取得数组或List/Set中的元素
+     *
+     * @param arrayObject 数组或集合
+     * @param index       索引，负数从末尾计算
+     * @return 元素
+     */
+    @SuppressWarnings("rawtypes")
+    static Object getElement(Object arrayObject, int index) {
+        Class<?> clazz = arrayObject.getClass();
+        if (arrayObject instanceof Object[]) {
+            final Object[] array = (Object[]) arrayObject;
+            return array[index < 0 ? index + array.length : index];
+        } else if (clazz.isArray()) {
+            return Primitives.getElement(arrayObject, absoluteIndex(arrayObject, index));
+        } else if (arrayObject instanceof Collection) {
+            return CollectionIndexer.getElement((Collection) arrayObject, index);
+        } else {
+            throw new ExpressionException("The instance \"%s\" type \"%s\" is not array or Collection", arrayObject.toString(), clazz);
+        }
+    }
+
+    static Object getValueFromMethod(Object rootInstance, Object instance, MethodExpression methodExpression, boolean lenient) {
+        final Expression[] argumentExpressions = methodExpression.arguments;
+        final Object[] arguments = new Object[argumentExpressions.length];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = lenient ? evaluate(rootInstance, argumentExpressions[i], true) : getValueUnobserved(rootInstance, argumentExpressions[i]);
+        }
+        return methodExpression.invoker.invoke(instance, arguments);
+    }
+
+    /**
+     * 求值Spliterator
+     */
+    private static final class EvaluatingSpliterator implements Spliterator<Object> {
+
+        private final Spliterator<?> source;
+
+        private final CompiledExpression compiled;
+
+        private EvaluatingSpliterator(Spliterator<?> source, CompiledExpression compiled) {
+            this.source = source;
+            this.compiled = compiled;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            return source.tryAdvance(instance -> action.accept(compiled.getValue(instance)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            source.forEachRemaining(instance -> action.accept(compiled.getValue(instance)));
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            final Spliterator<?> prefix = source.trySplit();
+            return prefix == null ? null : new EvaluatingSpliterator(prefix, compiled);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & (SIZED | SUBSIZED | ORDERED | IMMUTABLE | CONCURRENT);
         }
-        return sb.toString();
     }
 }
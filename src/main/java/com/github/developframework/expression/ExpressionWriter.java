@@ -0,0 +1,343 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 表达式写入器
+ * 将表达式树展开成属性/索引/方法步骤，按步骤读取到末端节点的容器后写入值
+ * 每个表达式对象持有一个写入器，属性步骤缓存最近一次解析的属性访问器
+ * <p>
+ * 开启自动创建时，为null的中间节点按下一步骤创建：索引步骤创建ArrayList（数组类型的属性创建长度恰好容纳索引的数组），
+ * 属性步骤创建LinkedHashMap（具体Bean类型的属性通过无参构造方法创建）；List在写入越界的索引时以null补齐
+ * 负索引从末尾计算，不能用于自动创建；切片只能作为中间节点，写入作用于切片视图背后的容器
+ *
+ * @author qiushui
+ */
+final class ExpressionWriter {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /* 类型 -> ()Object 的无参构造句柄，不可实例化的类型为空 */
+    private static final ClassValue<Optional<MethodHandle>> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isArray() || type.isPrimitive()) {
+                return Optional.empty();
+            }
+            try {
+                final Constructor<?> constructor = type.getDeclaredConstructor();
+                if (!constructor.trySetAccessible()) {
+                    return Optional.empty();
+                }
+                return Optional.of(LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class)));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    /* 源表达式 */
+    private final Expression expression;
+
+    /* 写入步骤，最后一步是属性或索引步骤 */
+    private final Step[] steps;
+
+    ExpressionWriter(Expression expression) {
+        this.expression = expression;
+        if (expression.hasWildcard()) {
+            throw new ExpressionException("Can't set value to wildcard expression \"%s\"", expression);
+        }
+        final List<Step> stepList = new ArrayList<>();
+        for (Expression singleExpression : expression.nodes()) {
+            if (singleExpression instanceof ObjectExpression) {
+                stepList.add(new PropertyStep(singleExpression.getName()));
+            } else if (singleExpression instanceof ArrayExpression) {
+                final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                if (arrayExpression.hasPropertyName()) {
+                    stepList.add(new PropertyStep(arrayExpression.getName()));
+                }
+                for (int i = 0; i < arrayExpression.indexArray.length; i++) {
+                    final int index = arrayExpression.indexArray[i];
+                    stepList.add(index == ArrayExpression.SLICE ? new SliceStep(arrayExpression.sliceAt(i)) : new IndexStep(index));
+                }
+            } else if (singleExpression instanceof MethodExpression) {
+                stepList.add(new MethodStep((MethodExpression) singleExpression));
+            }
+        }
+        if (stepList.isEmpty() || stepList.get(stepList.size() - 1) instanceof MethodStep || stepList.get(stepList.size() - 1) instanceof SliceStep) {
+            throw new ExpressionException("Can't set value to expression \"%s\", the last node must be a property or an index", expression);
+        }
+        this.steps = stepList.toArray(Step[]::new);
+    }
+
+    /**
+     * 写入值
+     *
+     * @param instance      根对象
+     * @param value         值
+     * @param createMissing 是否自动创建为null的中间节点
+     */
+    void setValue(Object instance, Object value, boolean createMissing) {
+        Object container = instance;
+        for (int i = 0, last = steps.length - 1; i < last; i++) {
+            final Step step = steps[i];
+            Object child = step.get(container, instance, createMissing);
+            if (child == null) {
+                if (!createMissing || step instanceof MethodStep) {
+                    throw new ExpressionException("Can't set value to expression \"%s\", the node \"%s\" is null", expression, step);
+                }
+                child = step.create(container, steps[i + 1]);
+                step.set(container, child, true);
+            }
+            container = child;
+        }
+        steps[steps.length - 1].set(container, value, createMissing);
+    }
+
+    /**
+     * 创建中间节点
+     *
+     * @param type 节点声明类型
+     * @param next 下一步骤
+     * @param step 当前步骤，用于错误信息
+     * @return 节点
+     */
+    private static Object newNode(Class<?> type, Step next, Step step) {
+        if (next instanceof IndexStep && ((IndexStep) next).index < 0) {
+            throw new ExpressionException("Can't create node \"%s\" for negative index %s", step, next);
+        }
+        if (type.isArray()) {
+            if (next instanceof IndexStep) {
+                return Array.newInstance(type.getComponentType(), ((IndexStep) next).index + 1);
+            }
+        } else if (type.isInterface() || type == Object.class) {
+            final Object node = next instanceof IndexStep ? new ArrayList<>() : new LinkedHashMap<>();
+            if (type.isInstance(node)) {
+                return node;
+            }
+        } else {
+            final Optional<MethodHandle> constructor = CONSTRUCTORS.get(type);
+            if (constructor.isPresent()) {
+                try {
+                    return (Object) constructor.get().invokeExact();
+                } catch (Throwable e) {
+                    throw new ExpressionException("%s instantiate failed: %s", type.getName(), e.getMessage());
+                }
+            }
+        }
+        throw new ExpressionException("Can't create node \"%s\" of type \"%s\"", step, type.getName());
+    }
+
+    /**
+     * 写入步骤
+     */
+    private abstract static class Step {
+
+        /**
+         * 读取子节点
+         *
+         * @param container     容器
+         * @param rootInstance  根对象
+         * @param createMissing 是否自动创建，开启时List越界返回null
+         * @return 子节点
+         */
+        abstract Object get(Object container, Object rootInstance, boolean createMissing);
+
+        /**
+         * 写入子节点
+         *
+         * @param container     容器
+         * @param value         值
+         * @param createMissing 是否自动创建，开启时List越界以null补齐
+         */
+        abstract void set(Object container, Object value, boolean createMissing);
+
+        /**
+         * 创建子节点
+         *
+         * @param container 容器
+         * @param next      下一步骤
+         * @return 子节点
+         */
+        abstract Object create(Object container, Step next);
+    }
+
+    /**
+     * 属性步骤
+     */
+    private static final class PropertyStep extends Step {
+
+        private final String propertyName;
+
+        /* 最近一次使用的属性访问器，单态缓存 */
+        private volatile PropertyAccessor accessor;
+
+        private PropertyStep(String propertyName) {
+            this.propertyName = propertyName;
+        }
+
+        private PropertyAccessor accessor(Class<?> clazz) {
+            PropertyAccessor cached = accessor;
+            if (cached == null || cached.ownerClass != clazz) {
+                cached = PropertyAccessors.getAccessor(clazz, propertyName);
+                accessor = cached;
+            }
+            return cached;
+        }
+
+        @Override
+        Object get(Object container, Object rootInstance, boolean createMissing) {
+            return accessor(container.getClass()).getValue(container);
+        }
+
+        @Override
+        void set(Object container, Object value, boolean createMissing) {
+            accessor(container.getClass()).setValue(container, value);
+        }
+
+        @Override
+        Object create(Object container, Step next) {
+            return newNode(accessor(container.getClass()).propertyType, next, this);
+        }
+
+        @Override
+        public String toString() {
+            return propertyName;
+        }
+    }
+
+    /**
+     * 索引步骤
+     */
+    private static final class IndexStep extends Step {
+
+        private final int index;
+
+        private IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        Object get(Object container, Object rootInstance, boolean createMissing) {
+            if (createMissing && container instanceof List && ((List) container).size() <= index) {
+                return null;
+            }
+            return ExpressionUtils.getElement(container, index);
+        }
+
+        @Override
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        void set(Object container, Object value, boolean createMissing) {
+            final int index = ExpressionUtils.absoluteIndex(container, this.index);
+            if (container instanceof Object[]) {
+                final Object[] array = (Object[]) container;
+                final Object converted = Primitives.convert(value, array.getClass().getComponentType());
+                try {
+                    array[index] = converted;
+                } catch (ArrayStoreException e) {
+                    throw new ExpressionException("Can't store value \"%s\" type \"%s\" to array \"%s\"", converted, converted.getClass(), array.getClass());
+                }
+            } else if (container.getClass().isArray()) {
+                Primitives.setElement(container, index, value);
+            } else if (container instanceof List) {
+                final List list = (List) container;
+                if (createMissing) {
+                    while (list.size() < index) {
+                        list.add(null);
+                    }
+                    if (list.size() == index) {
+                        list.add(value);
+                        return;
+                    }
+                }
+                list.set(index, value);
+            } else {
+                throw new ExpressionException("The instance \"%s\" type \"%s\" is not array or List", container.toString(), container.getClass());
+            }
+        }
+
+        @Override
+        Object create(Object container, Step next) {
+            final Class<?> type = container instanceof Object[] ? container.getClass().getComponentType() : Object.class;
+            return newNode(type, next, this);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + index + "]";
+        }
+    }
+
+    /**
+     * 切片步骤，只能作为中间节点读取
+     */
+    private static final class SliceStep extends Step {
+
+        private final Slice slice;
+
+        private SliceStep(Slice slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        Object get(Object container, Object rootInstance, boolean createMissing) {
+            return slice.apply(container);
+        }
+
+        @Override
+        void set(Object container, Object value, boolean createMissing) {
+            throw new ExpressionException("Can't set value to slice \"%s\"", slice);
+        }
+
+        @Override
+        Object create(Object container, Step next) {
+            throw new ExpressionException("Can't create node for slice \"%s\"", slice);
+        }
+
+        @Override
+        public String toString() {
+            return slice.toString();
+        }
+    }
+
+    /**
+     * 方法步骤，只能作为中间节点读取
+     */
+    private static final class MethodStep extends Step {
+
+        private final MethodExpression methodExpression;
+
+        private MethodStep(MethodExpression methodExpression) {
+            this.methodExpression = methodExpression;
+        }
+
+        @Override
+        Object get(Object container, Object rootInstance, boolean createMissing) {
+            return ExpressionUtils.getValueFromMethod(rootInstance, container, methodExpression, false);
+        }
+
+        @Override
+        void set(Object container, Object value, boolean createMissing) {
+            throw new ExpressionException("Can't set value to method expression \"%s\"", methodExpression.getExpressionValue());
+        }
+
+        @Override
+        Object create(Object container, Step next) {
+            throw new ExpressionException("Can't create node for method expression \"%s\"", methodExpression.getExpressionValue());
+        }
+
+        @Override
+        public String toString() {
+            return methodExpression.getExpressionValue();
+        }
+    }
+}
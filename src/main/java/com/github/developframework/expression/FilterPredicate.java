@@ -0,0 +1,243 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * 过滤谓词
+ * 数组节点中的过滤条件，示例： items[?price > 100 && name != null]
+ * 条件在解析时构建一次，相对路径编译成管道，属性访问复用内联缓存；对每个元素求值时以元素为起点，@表示元素本身
+ * <pre>
+ * filter     := or
+ * or         := and ('||' and)*
+ * and        := unary ('&&' unary)*
+ * unary      := '!' unary | '(' or ')' | comparison
+ * comparison := operand (('==' | '!=' | '>' | '>=' | '<' | '<=') operand)?
+ * operand    := path | number | string | 'true' | 'false' | 'null'
+ * path       := '@' ('.' expression)? | expression
+ * </pre>
+ * 单独的操作数判断是否为真：不是null也不是false；数字之间按数值比较，枚举可以与字符串比较名称，null只能判断相等
+ *
+ * @author qiushui
+ */
+public final class FilterPredicate implements Predicate<Object> {
+
+    /* 条件字符串 */
+    private final String expressionValue;
+
+    private final Condition condition;
+
+    FilterPredicate(String expressionValue, Condition condition) {
+        this.expressionValue = expressionValue;
+        this.condition = condition;
+    }
+
+    /**
+     * 编译过滤条件
+     *
+     * @param filterValue 过滤条件字符串，示例： price > 100 && name != null
+     * @return 过滤谓词
+     */
+    public static FilterPredicate compile(String filterValue) {
+        if (filterValue == null) {
+            throw new ExpressionException("can't compile null filter.");
+        }
+        return ExpressionParser.parseFilter(filterValue);
+    }
+
+    public String getExpressionValue() {
+        return expressionValue;
+    }
+
+    /**
+     * 判断元素是否满足条件，方法参数从元素取值
+     *
+     * @param element 元素
+     * @return 判断结果
+     */
+    @Override
+    public boolean test(Object element) {
+        return condition.test(element, element);
+    }
+
+    /**
+     * 判断元素是否满足条件
+     *
+     * @param element      元素
+     * @param rootInstance 根对象，方法参数从根对象取值
+     * @return 判断结果
+     */
+    boolean test(Object element, Object rootInstance) {
+        return condition.test(element, rootInstance);
+    }
+
+    @Override
+    public String toString() {
+        return expressionValue;
+    }
+
+    /**
+     * 条件
+     */
+    interface Condition {
+
+        boolean test(Object element, Object rootInstance);
+    }
+
+    /**
+     * 操作数
+     */
+    interface Operand {
+
+        Object evaluate(Object element, Object rootInstance);
+    }
+
+    /**
+     * 比较运算符
+     */
+    enum Operator {
+
+        EQ("=="), NE("!="), GE(">="), LE("<="), GT(">"), LT("<");
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    static Condition and(Condition[] conditions) {
+        return (element, rootInstance) -> {
+            for (Condition condition : conditions) {
+                if (!condition.test(element, rootInstance)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    static Condition or(Condition[] conditions) {
+        return (element, rootInstance) -> {
+            for (Condition condition : conditions) {
+                if (condition.test(element, rootInstance)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    static Condition not(Condition condition) {
+        return (element, rootInstance) -> !condition.test(element, rootInstance);
+    }
+
+    static Condition truthy(Operand operand) {
+        return (element, rootInstance) -> {
+            final Object value = operand.evaluate(element, rootInstance);
+            return value != null && !Boolean.FALSE.equals(value);
+        };
+    }
+
+    static Condition compare(Operand left, Operator operator, Operand right) {
+        switch (operator) {
+            case EQ:
+                return (element, rootInstance) -> equal(left.evaluate(element, rootInstance), right.evaluate(element, rootInstance));
+            case NE:
+                return (element, rootInstance) -> !equal(left.evaluate(element, rootInstance), right.evaluate(element, rootInstance));
+            default:
+                return (element, rootInstance) -> {
+                    final Object leftValue = left.evaluate(element, rootInstance);
+                    final Object rightValue = right.evaluate(element, rootInstance);
+                    if (leftValue == null || rightValue == null) {
+                        return false;
+                    }
+                    final Integer result = compare(leftValue, rightValue);
+                    if (result == null) {
+                        return false;
+                    }
+                    switch (operator) {
+                        case GT:
+                            return result > 0;
+                        case GE:
+                            return result >= 0;
+                        case LT:
+                            return result < 0;
+                        default:
+                            return result <= 0;
+                    }
+                };
+        }
+    }
+
+    static Operand literal(Object value) {
+        return (element, rootInstance) -> value;
+    }
+
+    static Operand self() {
+        return (element, rootInstance) -> element;
+    }
+
+    /**
+     * 相对路径，编译结果与表达式对象绑定，首次求值时编译
+     *
+     * @param expression 以元素为起点的表达式
+     * @return 操作数
+     */
+    static Operand path(Expression expression) {
+        return (element, rootInstance) -> expression.compile().evaluate(element, rootInstance);
+    }
+
+    private static boolean equal(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return compareNumbers((Number) left, (Number) right) == 0;
+        }
+        if (left instanceof Enum && right instanceof String) {
+            return ((Enum<?>) left).name().equals(right);
+        }
+        if (left instanceof String && right instanceof Enum) {
+            return ((Enum<?>) right).name().equals(left);
+        }
+        return Objects.equals(left, right);
+    }
+
+    /**
+     * 比较两个非null的值
+     *
+     * @return 比较结果，类型不可比较时返回null
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Integer compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return compareNumbers((Number) left, (Number) right);
+        }
+        if (left instanceof Enum && right instanceof String) {
+            return ((Enum<?>) left).name().compareTo((String) right);
+        }
+        if (left instanceof Comparable && left.getClass().isInstance(right)) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return null;
+    }
+
+    private static int compareNumbers(Number left, Number right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            return Long.compare(left.longValue(), right.longValue());
+        }
+        if (left instanceof BigDecimal || left instanceof BigInteger || right instanceof BigDecimal || right instanceof BigInteger) {
+            return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+        }
+        return Double.compare(left.doubleValue(), right.doubleValue());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+}
@@ -0,0 +1,694 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * JSON流式投影
+ * 将多个表达式合并成前缀树，对UTF-8编码的JSON字节做一次前向扫描：不匹配的子树只跳过不解析，
+ * 匹配的值才创建对象（对象为LinkedHashMap，数组为ArrayList，整数为Integer/Long/BigInteger，小数为Double），
+ * 所有表达式都取到值后立即停止扫描
+ * 只支持属性和索引节点，不支持方法和通配节点
+ *
+ * @author qiushui
+ */
+public final class JsonProjection {
+
+    /* 表达式 */
+    private final Expression[] expressions;
+
+    /* 前缀树根节点 */
+    private final Node rootNode;
+
+    /* 有输出的节点数量 */
+    private final int outputNodeCount;
+
+    private JsonProjection(Expression[] expressions) {
+        this.expressions = expressions;
+        final MutableNode root = new MutableNode();
+        for (int i = 0; i < expressions.length; i++) {
+            final Expression expression = expressions[i] == null ? EmptyExpression.INSTANCE : expressions[i];
+            MutableNode node = root;
+            for (Expression singleExpression : expression.nodes()) {
+                if (singleExpression instanceof ObjectExpression) {
+                    node = node.keyChild(singleExpression.getName());
+                } else if (singleExpression instanceof ArrayExpression) {
+                    final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                    if (arrayExpression.hasPropertyName()) {
+                        node = node.keyChild(arrayExpression.getName());
+                    }
+                    for (int j = 0; j < arrayExpression.indexArray.length; j++) {
+                        final int index = arrayExpression.indexArray[j];
+                        if (index < 0) {
+                            // 前向扫描无法预知数组长度，不支持负索引、切片、通配和过滤
+                            throw new ExpressionException("JSON projection does not support index %s in expression \"%s\"", arrayExpression.indexNode(j).getExpressionValue(), expression);
+                        }
+                        node = node.indexChild(index);
+                    }
+                } else {
+                    throw new ExpressionException("JSON projection does not support method expression \"%s\"", expression);
+                }
+            }
+            node.outputs.add(i);
+        }
+        final int[] outputNodeIds = new int[1];
+        this.rootNode = root.freeze(outputNodeIds);
+        this.outputNodeCount = outputNodeIds[0];
+    }
+
+    /**
+     * 构建JSON投影
+     *
+     * @param expressions 表达式
+     * @return JSON投影
+     */
+    public static JsonProjection of(Expression... expressions) {
+        return new JsonProjection(expressions.clone());
+    }
+
+    /**
+     * 构建JSON投影
+     *
+     * @param expressions 表达式
+     * @return JSON投影
+     */
+    public static JsonProjection of(Collection<? extends Expression> expressions) {
+        return new JsonProjection(expressions.toArray(Expression[]::new));
+    }
+
+    /**
+     * 构建JSON投影
+     *
+     * @param expressionValues 表达式字符串
+     * @return JSON投影
+     */
+    public static JsonProjection of(String... expressionValues) {
+        final ExpressionCache expressionCache = ExpressionUtils.getExpressionCache();
+        final Expression[] expressions = new Expression[expressionValues.length];
+        for (int i = 0; i < expressionValues.length; i++) {
+            expressions[i] = expressionCache.get(expressionValues[i]);
+        }
+        return new JsonProjection(expressions);
+    }
+
+    /**
+     * 表达式数量
+     */
+    public int size() {
+        return expressions.length;
+    }
+
+    public List<Expression> getExpressions() {
+        return Collections.unmodifiableList(Arrays.asList(expressions));
+    }
+
+    /**
+     * 获取值
+     *
+     * @param json UTF-8编码的JSON
+     * @return 值数组，与构建时的表达式顺序一致，不存在的路径为null
+     */
+    public Object[] getValues(byte[] json) {
+        return getValues(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * 获取值，扫描position到limit之间的字节，不改变缓冲区的position
+     *
+     * @param json UTF-8编码的JSON
+     * @return 值数组，与构建时的表达式顺序一致，不存在的路径为null
+     */
+    public Object[] getValues(ByteBuffer json) {
+        final Object[] values = new Object[expressions.length];
+        new Scanner(json, values, outputNodeCount).scanRoot(rootNode);
+        return values;
+    }
+
+    /**
+     * 获取值，以内存映射方式读取文件
+     *
+     * @param path UTF-8编码的JSON文件
+     * @return 值数组，与构建时的表达式顺序一致，不存在的路径为null
+     */
+    public Object[] getValues(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ExpressionException("JSON file \"%s\" is too large to map: %d bytes", path, size);
+            }
+            return getValues(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException e) {
+            throw new ExpressionException("read JSON file \"%s\" failed: %s", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取值
+     *
+     * @param json UTF-8编码的JSON
+     * @return 以表达式字符串为键的有序Map
+     */
+    public Map<String, Object> getValueMap(byte[] json) {
+        final Object[] values = getValues(json);
+        final Map<String, Object> valueMap = new LinkedHashMap<>((int) (values.length / 0.75f) + 1);
+        for (int i = 0; i < values.length; i++) {
+            valueMap.put(String.valueOf(expressions[i]), values[i]);
+        }
+        return valueMap;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+
+        /* 属性名称的UTF-8字节，与keyNames、keyChildren按下标对应 */
+        private final byte[][] keyBytes;
+
+        private final String[] keyNames;
+
+        private final Node[] keyChildren;
+
+        /* 按索引排列的子节点，没有的索引为null */
+        private final Node[] indexChildren;
+
+        /* 在该节点结束的表达式下标 */
+        private final int[] outputs;
+
+        /* 有输出时为节点编号，否则为-1 */
+        private final int outputId;
+
+        private Node(byte[][] keyBytes, String[] keyNames, Node[] keyChildren, Node[] indexChildren, int[] outputs, int outputId) {
+            this.keyBytes = keyBytes;
+            this.keyNames = keyNames;
+            this.keyChildren = keyChildren;
+            this.indexChildren = indexChildren;
+            this.outputs = outputs;
+            this.outputId = outputId;
+        }
+
+        private Node keyChild(String name) {
+            for (int i = 0; i < keyNames.length; i++) {
+                if (keyNames[i].equals(name)) {
+                    return keyChildren[i];
+                }
+            }
+            return null;
+        }
+
+        private Node indexChild(int index) {
+            return index < indexChildren.length ? indexChildren[index] : null;
+        }
+    }
+
+    /**
+     * 构建期的前缀树节点
+     */
+    private static final class MutableNode {
+
+        private final Map<String, MutableNode> keyChildren = new LinkedHashMap<>();
+
+        private final TreeMap<Integer, MutableNode> indexChildren = new TreeMap<>();
+
+        private final List<Integer> outputs = new ArrayList<>(1);
+
+        private MutableNode keyChild(String name) {
+            return keyChildren.computeIfAbsent(name, k -> new MutableNode());
+        }
+
+        private MutableNode indexChild(int index) {
+            return indexChildren.computeIfAbsent(index, k -> new MutableNode());
+        }
+
+        private Node freeze(int[] outputNodeIds) {
+            final int size = keyChildren.size();
+            final byte[][] keyBytes = new byte[size][];
+            final String[] keyNames = new String[size];
+            final Node[] frozenKeyChildren = new Node[size];
+            int i = 0;
+            for (Map.Entry<String, MutableNode> entry : keyChildren.entrySet()) {
+                keyNames[i] = entry.getKey();
+                keyBytes[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                frozenKeyChildren[i++] = entry.getValue().freeze(outputNodeIds);
+            }
+            final Node[] frozenIndexChildren = new Node[indexChildren.isEmpty() ? 0 : indexChildren.lastKey() + 1];
+            for (Map.Entry<Integer, MutableNode> entry : indexChildren.entrySet()) {
+                frozenIndexChildren[entry.getKey()] = entry.getValue().freeze(outputNodeIds);
+            }
+            return new Node(
+                    keyBytes,
+                    keyNames,
+                    frozenKeyChildren,
+                    frozenIndexChildren,
+                    outputs.stream().mapToInt(Integer::intValue).toArray(),
+                    outputs.isEmpty() ? -1 : outputNodeIds[0]++
+            );
+        }
+    }
+
+    /**
+     * 单次扫描的状态
+     */
+    private static final class Scanner {
+
+        private final ByteBuffer buffer;
+
+        private final int limit;
+
+        private final Object[] values;
+
+        /* 已取到值的节点 */
+        private final boolean[] resolved;
+
+        /* 尚未取到值的节点数量，为0时停止扫描 */
+        private int remaining;
+
+        private int position;
+
+        private Scanner(ByteBuffer buffer, Object[] values, int outputNodeCount) {
+            this.buffer = buffer;
+            this.position = buffer.position();
+            this.limit = buffer.limit();
+            this.values = values;
+            this.resolved = new boolean[outputNodeCount];
+            this.remaining = outputNodeCount;
+        }
+
+        private void scanRoot(Node node) {
+            if (remaining > 0) {
+                scanValue(node);
+            }
+        }
+
+        private void scanValue(Node node) {
+            if (node.outputId >= 0) {
+                if (resolved[node.outputId]) {
+                    skipValue();
+                } else {
+                    resolve(node, readValue());
+                }
+                return;
+            }
+            final byte c = nextToken();
+            if (c == '{' && node.keyChildren.length > 0) {
+                scanObject(node);
+            } else if (c == '[' && node.indexChildren.length > 0) {
+                scanArray(node);
+            } else {
+                skipValue();
+            }
+        }
+
+        private void scanObject(Node node) {
+            position++;
+            if (nextToken() == '}') {
+                position++;
+                return;
+            }
+            while (true) {
+                expect('"');
+                final Node child = matchKey(node);
+                expectToken(':');
+                if (child == null) {
+                    skipValue();
+                } else {
+                    scanValue(child);
+                    if (remaining == 0) {
+                        return;
+                    }
+                }
+                if (nextToken() == ',') {
+                    position++;
+                    nextToken();
+                } else {
+                    expect('}');
+                    return;
+                }
+            }
+        }
+
+        private void scanArray(Node node) {
+            position++;
+            if (nextToken() == ']') {
+                position++;
+                return;
+            }
+            for (int index = 0; ; index++) {
+                final Node child = node.indexChild(index);
+                if (child == null) {
+                    skipValue();
+                } else {
+                    scanValue(child);
+                    if (remaining == 0) {
+                        return;
+                    }
+                }
+                if (nextToken() == ',') {
+                    position++;
+                    nextToken();
+                } else {
+                    expect(']');
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 读取属性名称并匹配子节点，不含转义时直接比较字节
+         */
+        private Node matchKey(Node node) {
+            final int start = position;
+            boolean escaped = false;
+            while (true) {
+                final byte c = byteAt(position);
+                if (c == '"') {
+                    break;
+                } else if (c == '\\') {
+                    escaped = true;
+                    position++;
+                }
+                position++;
+            }
+            final int end = position++;
+            if (escaped) {
+                position = start;
+                final String key = readString();
+                return node.keyChild(key);
+            }
+            final int length = end - start;
+            final byte[][] keyBytes = node.keyBytes;
+            outer:
+            for (int i = 0; i < keyBytes.length; i++) {
+                final byte[] bytes = keyBytes[i];
+                if (bytes.length != length) {
+                    continue;
+                }
+                for (int j = 0; j < length; j++) {
+                    if (buffer.get(start + j) != bytes[j]) {
+                        continue outer;
+                    }
+                }
+                return node.keyChildren[i];
+            }
+            return null;
+        }
+
+        /**
+         * 记录节点的值，并从已创建的值中解析后代节点
+         */
+        private void resolve(Node node, Object value) {
+            if (node.outputId >= 0 && !resolved[node.outputId]) {
+                resolved[node.outputId] = true;
+                remaining--;
+                for (int output : node.outputs) {
+                    values[output] = value;
+                }
+            }
+            if (value instanceof Map) {
+                for (int i = 0; i < node.keyChildren.length; i++) {
+                    resolve(node.keyChildren[i], ((Map<?, ?>) value).get(node.keyNames[i]));
+                }
+            } else if (value instanceof List) {
+                final List<?> list = (List<?>) value;
+                for (int i = 0; i < node.indexChildren.length; i++) {
+                    if (node.indexChildren[i] != null) {
+                        resolve(node.indexChildren[i], i < list.size() ? list.get(i) : null);
+                    }
+                }
+            }
+        }
+
+        private Object readValue() {
+            final byte c = nextToken();
+            switch (c) {
+                case '{': {
+                    position++;
+                    final Map<String, Object> map = new LinkedHashMap<>();
+                    if (nextToken() == '}') {
+                        position++;
+                        return map;
+                    }
+                    while (true) {
+                        expect('"');
+                        final String key = readString();
+                        expectToken(':');
+                        map.put(key, readValue());
+                        if (nextToken() == ',') {
+                            position++;
+                            nextToken();
+                        } else {
+                            expect('}');
+                            return map;
+                        }
+                    }
+                }
+                case '[': {
+                    position++;
+                    final List<Object> list = new ArrayList<>();
+                    if (nextToken() == ']') {
+                        position++;
+                        return list;
+                    }
+                    while (true) {
+                        list.add(readValue());
+                        if (nextToken() == ',') {
+                            position++;
+                        } else {
+                            expect(']');
+                            return list;
+                        }
+                    }
+                }
+                case '"':
+                    position++;
+                    return readString();
+                case 't':
+                    expectLiteral("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    expectLiteral("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    expectLiteral("null");
+                    return null;
+                default:
+                    return readNumber();
+            }
+        }
+
+        /**
+         * 读取字符串，position位于左引号之后，结束时位于右引号之后
+         */
+        private String readString() {
+            final int start = position;
+            while (true) {
+                final byte c = byteAt(position);
+                if (c == '"') {
+                    final String value = decode(start, position);
+                    position++;
+                    return value;
+                } else if (c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            final StringBuilder sb = new StringBuilder(decode(start, position));
+            while (true) {
+                final byte c = byteAt(position);
+                if (c == '"') {
+                    position++;
+                    return sb.toString();
+                } else if (c == '\\') {
+                    final byte escape = byteAt(position + 1);
+                    position += 2;
+                    switch (escape) {
+                        case '"':
+                        case '\\':
+                        case '/':
+                            sb.append((char) escape);
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            try {
+                                sb.append((char) Integer.parseInt(decode(position, position + 4), 16));
+                            } catch (NumberFormatException e) {
+                                throw invalid(position, "invalid unicode escape");
+                            }
+                            position += 4;
+                            break;
+                        default:
+                            throw invalid(position - 1, "invalid escape");
+                    }
+                } else {
+                    final int segmentStart = position;
+                    while (byteAt(position) != '"' && byteAt(position) != '\\') {
+                        position++;
+                    }
+                    sb.append(decode(segmentStart, position));
+                }
+            }
+        }
+
+        private Object readNumber() {
+            final int start = position;
+            boolean decimal = false;
+            while (position < limit) {
+                final byte c = buffer.get(position);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if ((c < '0' || c > '9') && c != '-' && c != '+') {
+                    break;
+                }
+                position++;
+            }
+            if (start == position) {
+                throw invalid(start, "unexpected character '" + (char) buffer.get(start) + "'");
+            }
+            final String text = decode(start, position);
+            try {
+                if (decimal) {
+                    return Double.parseDouble(text);
+                }
+                final long value = Long.parseLong(text);
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            } catch (NumberFormatException e) {
+                if (!decimal) {
+                    try {
+                        return new BigInteger(text);
+                    } catch (NumberFormatException ignored) {
+                        // 按非法数字处理
+                    }
+                }
+                throw invalid(start, "invalid number \"" + text + "\"");
+            }
+        }
+
+        /**
+         * 跳过一个值，不创建对象
+         */
+        private void skipValue() {
+            final byte c = nextToken();
+            if (c == '"') {
+                position++;
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                while (true) {
+                    final byte b = byteAt(position++);
+                    if (b == '"') {
+                        skipString();
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                    } else if ((b == '}' || b == ']') && --depth == 0) {
+                        return;
+                    }
+                }
+            } else {
+                final int start = position;
+                while (position < limit) {
+                    final byte b = buffer.get(position);
+                    if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                        break;
+                    }
+                    position++;
+                }
+                if (start == position) {
+                    throw invalid(start, "unexpected character '" + (char) c + "'");
+                }
+            }
+        }
+
+        private void skipString() {
+            while (true) {
+                final byte b = byteAt(position++);
+                if (b == '"') {
+                    return;
+                } else if (b == '\\') {
+                    position++;
+                }
+            }
+        }
+
+        /**
+         * 跳过空白并返回下一个字节，不移动到该字节之后
+         */
+        private byte nextToken() {
+            while (true) {
+                final byte c = byteAt(position);
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return c;
+                }
+                position++;
+            }
+        }
+
+        private void expect(char c) {
+            if (byteAt(position) != c) {
+                throw invalid(position, "expected '" + c + "' but was '" + (char) buffer.get(position) + "'");
+            }
+            position++;
+        }
+
+        private void expectToken(char c) {
+            nextToken();
+            expect(c);
+            nextToken();
+        }
+
+        private void expectLiteral(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (byteAt(position + i) != literal.charAt(i)) {
+                    throw invalid(position, "expected \"" + literal + "\"");
+                }
+            }
+            position += literal.length();
+        }
+
+        private byte byteAt(int index) {
+            if (index >= limit) {
+                throw new ExpressionException("Invalid JSON: unexpected end of input");
+            }
+            return buffer.get(index);
+        }
+
+        private String decode(int start, int end) {
+            if (end > limit) {
+                throw new ExpressionException("Invalid JSON: unexpected end of input");
+            }
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+            }
+            final byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private ExpressionException invalid(int index, String message) {
+            return new ExpressionException("Invalid JSON at offset %d: %s", index, message);
+        }
+    }
+}
@@ -1,15 +1,15 @@
 package com.github.developframework.expression;
 
 import com.github.developframework.expression.exception.ExpressionParseException;
+import lombok.AccessLevel;
 import lombok.Getter;
-import org.apache.commons.lang3.StringUtils;
 
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * 方法表达式
- * 示例： a.abc(x, y)
+ * 示例： a.abc(x, y)、a.abc(b.c, d.e(f))
  *
  * @author qiushui
  */
@@ -17,26 +17,49 @@ import java.util.stream.Stream;
 public class MethodExpression extends Expression {
 
     /* 方法参数 */
-    private final Expression[] arguments;
+    final Expression[] arguments;
+
+    /* 方法调用点 */
+    @Getter(AccessLevel.NONE)
+    final MethodInvoker invoker;
 
     protected MethodExpression(String expressionValue) {
-        if (!isMethodExpression(expressionValue)) {
-            throw new ExpressionParseException("The Expression \"%s\" is not a method expression.", expressionValue);
-        }
-        this.name = StringUtils.substringBefore(expressionValue, "(");
-        final String argumentString = expressionValue.substring(expressionValue.indexOf("(") + 1, expressionValue.lastIndexOf(")"));
-        this.arguments = Stream
-                .of(argumentString.split(","))
-                .map(Expression::parse)
-                .filter(e -> e instanceof ObjectExpression || e instanceof ArrayExpression)
-                .toArray(Expression[]::new);
-        this.expressionValue = forExpressionValue(this.name, this.arguments);
+        this(parseMethod(expressionValue));
+    }
+
+    private MethodExpression(MethodExpression methodExpression) {
+        this(methodExpression.name, methodExpression.arguments);
     }
 
     protected MethodExpression(String methodName, Expression[] arguments) {
         this.name = methodName;
         this.arguments = arguments;
         this.expressionValue = forExpressionValue(this.name, this.arguments);
+        this.invoker = new MethodInvoker(this.name);
+    }
+
+    @Override
+    void clearCompiledState() {
+        // 参数是根下的规范化节点，由遍历规范化树清理；参数的子孙可能包含本节点，这里不递归参数
+        invoker.reset();
+        super.clearCompiledState();
+    }
+
+    /**
+     * 返回方法参数
+     *
+     * @return 方法参数数组副本
+     */
+    public Expression[] getArguments() {
+        return arguments.clone();
+    }
+
+    private static MethodExpression parseMethod(String expressionValue) {
+        final Expression expression = ExpressionParser.parseSegment(expressionValue);
+        if (!(expression instanceof MethodExpression)) {
+            throw new ExpressionParseException("The Expression \"%s\" is not a method expression.", expressionValue);
+        }
+        return (MethodExpression) expression;
     }
 
     private String forExpressionValue(String methodName, Expression[] arguments) {
@@ -45,12 +68,12 @@ public class MethodExpression extends Expression {
 
 
     /**
-     * 检测expressionValue是否是方法型表达式
+     * 检测expressionValue是否是方法型表达式，参数可以是任意表达式，包括嵌套的方法调用
      *
      * @param expressionValue 表达式字符串
      * @return 检测结果
      */
     public static boolean isMethodExpression(String expressionValue) {
-        return expressionValue != null && expressionValue.matches("^\\w+\\((\\w+(\\[\\d+])*(,\\w+(\\[\\d+])*)*)?\\)$");
+        return ExpressionParser.parseSegment(expressionValue) instanceof MethodExpression;
     }
 }
@@ -0,0 +1,217 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 方法调用点
+ * 每个方法表达式持有一个调用点，以接收者类型和参数运行时类型为键缓存已解析的MethodHandle：
+ * 先是单态/多态内联缓存，超过{@value #MAX_POLYMORPHIC_DEPTH}种类型组合后退化为按接收者类型的全局查找表
+ * 内联缓存强引用接收者类型，由{@link ExpressionUtils#clearCompiledState()}清空
+ *
+ * @author qiushui
+ */
+final class MethodInvoker {
+
+    /* 内联缓存的最大多态深度 */
+    static final int MAX_POLYMORPHIC_DEPTH = 4;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Entry[] EMPTY_ENTRIES = new Entry[0];
+
+    /* 全局查找表：接收者类型 -> 方法名称 -> 调用入口，写时复制，按参数运行时类型逐个匹配，查找时不分配对象 */
+    private static final ClassValue<ConcurrentMap<String, Entry[]>> MEGAMORPHIC_TABLE = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<String, Entry[]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /* 方法名称 */
+    private final String methodName;
+
+    /* 内联缓存，写时复制 */
+    private volatile Entry[] entries = EMPTY_ENTRIES;
+
+    /* 是否已退化为全局查找 */
+    private volatile boolean megamorphic;
+
+    MethodInvoker(String methodName) {
+        this.methodName = methodName;
+    }
+
+    /**
+     * 调用方法
+     *
+     * @param instance  实例
+     * @param arguments 参数
+     * @return 返回值
+     */
+    Object invoke(Object instance, Object[] arguments) {
+        final Class<?> receiverClass = instance.getClass();
+        for (Entry entry : entries) {
+            if (entry.matches(receiverClass, arguments)) {
+                return entry.invoke(instance, arguments);
+            }
+        }
+        final Entry entry = lookup(receiverClass, arguments);
+        if (!megamorphic) {
+            link(entry);
+        }
+        return entry.invoke(instance, arguments);
+    }
+
+    /**
+     * 清空内联缓存，全局查找表按类型保存在ClassValue中，不需要清理
+     */
+    synchronized void reset() {
+        entries = EMPTY_ENTRIES;
+        megamorphic = false;
+    }
+
+    private synchronized void link(Entry entry) {
+        final Entry[] current = entries;
+        if (current.length >= MAX_POLYMORPHIC_DEPTH) {
+            megamorphic = true;
+            entries = EMPTY_ENTRIES;
+            ExpressionUtils.metrics().onGenericFallback(methodName);
+            return;
+        }
+        for (Entry linked : current) {
+            if (linked == entry) {
+                return;
+            }
+        }
+        final Entry[] linked = Arrays.copyOf(current, current.length + 1);
+        linked[current.length] = entry;
+        entries = linked;
+    }
+
+    private Entry lookup(Class<?> receiverClass, Object[] arguments) {
+        final ConcurrentMap<String, Entry[]> table = MEGAMORPHIC_TABLE.get(receiverClass);
+        final Entry found = find(table.get(methodName), receiverClass, arguments);
+        if (found != null) {
+            return found;
+        }
+        // 未命中时才构建参数类型数组并解析
+        final Class<?>[] argumentClasses = new Class<?>[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            argumentClasses[i] = arguments[i] == null ? null : arguments[i].getClass();
+        }
+        final Entry entry = resolve(receiverClass, argumentClasses);
+        ExpressionUtils.metrics().onMethodResolved(receiverClass, methodName);
+        final Entry[] merged = table.merge(methodName, new Entry[]{entry}, (current, added) -> {
+            if (find(current, receiverClass, arguments) != null) {
+                return current;
+            }
+            final Entry[] result = Arrays.copyOf(current, current.length + 1);
+            result[current.length] = added[0];
+            return result;
+        });
+        // 并发解析时以先登记的入口为准
+        return find(merged, receiverClass, arguments);
+    }
+
+    private static Entry find(Entry[] entries, Class<?> receiverClass, Object[] arguments) {
+        if (entries != null) {
+            for (Entry entry : entries) {
+                if (entry.matches(receiverClass, arguments)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析方法，匹配规则与{@link MethodUtils#invokeMethod(Object, boolean, String, Object...)}一致
+     *
+     * @param receiverClass   接收者类型
+     * @param argumentClasses 参数运行时类型，null参数对应null
+     * @return 调用入口
+     */
+    private Entry resolve(Class<?> receiverClass, Class<?>[] argumentClasses) {
+        final Method method = MethodUtils.getMatchingMethod(receiverClass, methodName, argumentClasses);
+        if (method == null) {
+            throw new ExpressionException("%s invoke failed: No such method: %s() on object: %s", methodName, methodName, receiverClass.getName());
+        }
+        if (!method.trySetAccessible()) {
+            throw new ExpressionException("Illegal access method \"%s\" in class \"%s\"", methodName, receiverClass.getName());
+        }
+        try {
+            // 与getMatchingMethod一致，可变参数方法只接受显式传入的数组
+            MethodHandle handle = LOOKUP.unreflect(method).asFixedArity();
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, receiverClass);
+            }
+            // 先按运行时类型适配（例如Integer拆箱并拓宽为long），再统一成 (Object, Object[])Object
+            final Class<?>[] exactTypes = new Class<?>[argumentClasses.length + 1];
+            exactTypes[0] = receiverClass;
+            for (int i = 0; i < argumentClasses.length; i++) {
+                exactTypes[i + 1] = argumentClasses[i] == null ? method.getParameterTypes()[i] : argumentClasses[i];
+            }
+            handle = handle
+                    .asType(MethodType.methodType(method.getReturnType(), exactTypes))
+                    .asType(MethodType.genericMethodType(exactTypes.length))
+                    .asSpreader(1, Object[].class, argumentClasses.length);
+            return new Entry(methodName, receiverClass, argumentClasses, handle);
+        } catch (IllegalAccessException e) {
+            throw new ExpressionException("Illegal access method \"%s\" in class \"%s\"", methodName, receiverClass.getName());
+        }
+    }
+
+    /**
+     * 调用入口
+     */
+    private static final class Entry {
+
+        private final String methodName;
+
+        private final Class<?> receiverClass;
+
+        private final Class<?>[] argumentClasses;
+
+        /* (Object instance, Object[] arguments)Object */
+        private final MethodHandle handle;
+
+        private Entry(String methodName, Class<?> receiverClass, Class<?>[] argumentClasses, MethodHandle handle) {
+            this.methodName = methodName;
+            this.receiverClass = receiverClass;
+            this.argumentClasses = argumentClasses;
+            this.handle = handle;
+        }
+
+        private boolean matches(Class<?> receiverClass, Object[] arguments) {
+            if (this.receiverClass != receiverClass || argumentClasses.length != arguments.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                final Object argument = arguments[i];
+                if (argument == null ? argumentClasses[i] != null : argument.getClass() != argumentClasses[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object invoke(Object instance, Object[] arguments) {
+            try {
+                return (Object) handle.invokeExact(instance, arguments);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExpressionException("%s invoke failed: %s", methodName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.developframework.expression;
+
+/**
+ * 属性不存在时的处理策略
+ * 不存在的属性按类型做负缓存，之后的访问不再查找类型层级
+ *
+ * @author qiushui
+ */
+public enum MissPolicy {
+
+    /**
+     * 抛出{@link com.github.developframework.expression.exception.NoSuchPropertyException}（默认），异常不填充栈轨迹
+     */
+    THROW,
+
+    /**
+     * 返回null，与Map中不存在的键一致
+     */
+    RETURN_NULL,
+
+    /**
+     * 返回{@link ExpressionUtils#setMissDefaultValue(Object)}配置的默认值，之后的节点以该值继续求值
+     * Map中不存在的键仍然得到null；需要按次指定默认值时使用{@link ExpressionUtils#getValueOrDefault(Object, String, Object)}
+     */
+    RETURN_DEFAULT
+}
@@ -20,7 +20,7 @@ public class ObjectExpression extends Expression {
      * @return 检测结果
      */
     public static boolean isObjectExpression(String expressionValue) {
-        return expressionValue != null && expressionValue.matches("^\\w+$");
+        return ExpressionParser.parseSegment(expressionValue) instanceof ObjectExpression;
     }
 
 }
@@ -0,0 +1,218 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+/**
+ * 原始类型工具
+ * 提供八种原始类型数组的按索引读写，以及不装箱的数值读取
+ *
+ * @author qiushui
+ */
+final class Primitives {
+
+    private Primitives() {
+    }
+
+    static boolean isIntCompatible(Class<?> type) {
+        return type == int.class || type == short.class || type == byte.class || type == char.class;
+    }
+
+    static boolean isLongCompatible(Class<?> type) {
+        return type == long.class || isIntCompatible(type);
+    }
+
+    static boolean isDoubleCompatible(Class<?> type) {
+        return type == double.class || type == float.class || isLongCompatible(type);
+    }
+
+    /**
+     * 按索引读取原始类型数组元素（装箱）
+     *
+     * @param array 原始类型数组
+     * @param index 索引
+     * @return 元素
+     */
+    static Object getElement(Object array, int index) {
+        if (array instanceof int[]) {
+            return ((int[]) array)[index];
+        } else if (array instanceof long[]) {
+            return ((long[]) array)[index];
+        } else if (array instanceof double[]) {
+            return ((double[]) array)[index];
+        } else if (array instanceof boolean[]) {
+            return ((boolean[]) array)[index];
+        } else if (array instanceof byte[]) {
+            return ((byte[]) array)[index];
+        } else if (array instanceof char[]) {
+            return ((char[]) array)[index];
+        } else if (array instanceof short[]) {
+            return ((short[]) array)[index];
+        } else if (array instanceof float[]) {
+            return ((float[]) array)[index];
+        }
+        throw new ExpressionException("The instance \"%s\" type \"%s\" is not primitive array", array.toString(), array.getClass());
+    }
+
+    /**
+     * 按索引写入原始类型数组元素，数值按元素类型转换
+     *
+     * @param array 原始类型数组
+     * @param index 索引
+     * @param value 值
+     */
+    static void setElement(Object array, int index, Object value) {
+        if (array instanceof int[]) {
+            ((int[]) array)[index] = toInt(value);
+        } else if (array instanceof long[]) {
+            ((long[]) array)[index] = toLong(value);
+        } else if (array instanceof double[]) {
+            ((double[]) array)[index] = toDouble(value);
+        } else if (array instanceof boolean[]) {
+            ((boolean[]) array)[index] = toBoolean(value);
+        } else if (array instanceof byte[]) {
+            ((byte[]) array)[index] = (byte) toInt(value);
+        } else if (array instanceof char[]) {
+            ((char[]) array)[index] = value instanceof Character ? (Character) value : (char) toInt(value);
+        } else if (array instanceof short[]) {
+            ((short[]) array)[index] = (short) toInt(value);
+        } else if (array instanceof float[]) {
+            ((float[]) array)[index] = (float) toDouble(value);
+        } else {
+            throw new ExpressionException("The instance \"%s\" type \"%s\" is not primitive array", array.toString(), array.getClass());
+        }
+    }
+
+    /**
+     * 将值转换为目标类型，只处理数值类型之间的转换，其余类型原样返回由调用方校验
+     *
+     * @param value      值
+     * @param targetType 目标类型
+     * @return 转换后的值
+     */
+    static Object convert(Object value, Class<?> targetType) {
+        if (value == null) {
+            if (targetType.isPrimitive()) {
+                throw cannotConvert(null, targetType);
+            }
+            return null;
+        }
+        if (targetType.isInstance(value) || !(value instanceof Number || value instanceof Character)) {
+            return value;
+        }
+        if (targetType == int.class || targetType == Integer.class) {
+            return toInt(value);
+        } else if (targetType == long.class || targetType == Long.class) {
+            return toLong(value);
+        } else if (targetType == double.class || targetType == Double.class) {
+            return toDouble(value);
+        } else if (targetType == float.class || targetType == Float.class) {
+            return (float) toDouble(value);
+        } else if (targetType == short.class || targetType == Short.class) {
+            return (short) toInt(value);
+        } else if (targetType == byte.class || targetType == Byte.class) {
+            return (byte) toInt(value);
+        } else if (targetType == char.class || targetType == Character.class) {
+            return (char) toInt(value);
+        }
+        return value;
+    }
+
+    static int getIntElement(Object container, int index) {
+        index = ExpressionUtils.absoluteIndex(container, index);
+        if (container instanceof int[]) {
+            return ((int[]) container)[index];
+        } else if (container instanceof short[]) {
+            return ((short[]) container)[index];
+        } else if (container instanceof byte[]) {
+            return ((byte[]) container)[index];
+        } else if (container instanceof char[]) {
+            return ((char[]) container)[index];
+        }
+        return toInt(ExpressionUtils.getElement(container, index));
+    }
+
+    static long getLongElement(Object container, int index) {
+        index = ExpressionUtils.absoluteIndex(container, index);
+        if (container instanceof long[]) {
+            return ((long[]) container)[index];
+        } else if (container instanceof int[]) {
+            return ((int[]) container)[index];
+        } else if (container instanceof short[]) {
+            return ((short[]) container)[index];
+        } else if (container instanceof byte[]) {
+            return ((byte[]) container)[index];
+        } else if (container instanceof char[]) {
+            return ((char[]) container)[index];
+        }
+        return toLong(ExpressionUtils.getElement(container, index));
+    }
+
+    static double getDoubleElement(Object container, int index) {
+        index = ExpressionUtils.absoluteIndex(container, index);
+        if (container instanceof double[]) {
+            return ((double[]) container)[index];
+        } else if (container instanceof float[]) {
+            return ((float[]) container)[index];
+        } else if (container instanceof long[]) {
+            return ((long[]) container)[index];
+        } else if (container instanceof int[]) {
+            return ((int[]) container)[index];
+        } else if (container instanceof short[]) {
+            return ((short[]) container)[index];
+        } else if (container instanceof byte[]) {
+            return ((byte[]) container)[index];
+        } else if (container instanceof char[]) {
+            return ((char[]) container)[index];
+        }
+        return toDouble(ExpressionUtils.getElement(container, index));
+    }
+
+    static boolean getBooleanElement(Object container, int index) {
+        index = ExpressionUtils.absoluteIndex(container, index);
+        if (container instanceof boolean[]) {
+            return ((boolean[]) container)[index];
+        }
+        return toBoolean(ExpressionUtils.getElement(container, index));
+    }
+
+    static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value instanceof Character) {
+            return (Character) value;
+        }
+        throw cannotConvert(value, int.class);
+    }
+
+    static long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Character) {
+            return (Character) value;
+        }
+        throw cannotConvert(value, long.class);
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Character) {
+            return (Character) value;
+        }
+        throw cannotConvert(value, double.class);
+    }
+
+    static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw cannotConvert(value, boolean.class);
+    }
+
+    private static ExpressionException cannotConvert(Object value, Class<?> primitiveType) {
+        if (value == null) {
+            return new ExpressionException("Can't convert null to %s", primitiveType);
+        }
+        return new ExpressionException("Can't convert value \"%s\" type \"%s\" to %s", value, value.getClass(), primitiveType);
+    }
+}
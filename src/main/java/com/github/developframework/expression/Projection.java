@@ -0,0 +1,202 @@
+package com.github.developframework.expression;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 多表达式投影
+ * 将多个表达式按节点合并成前缀树，对同一个根对象取值时共享的前缀只求值一次
+ * 示例： order.customer.name、order.customer.address.city 共享 order.customer
+ * 只共享属性和索引节点，方法可能有副作用，每次出现都单独调用，其后的节点也不再共享
+ *
+ * @author qiushui
+ */
+public final class Projection {
+
+    /* 表达式 */
+    private final Expression[] expressions;
+
+    /* 前缀树根节点 */
+    private final Node rootNode;
+
+    private Projection(Expression[] expressions) {
+        this.expressions = expressions;
+        final MutableNode root = new MutableNode(null);
+        for (int i = 0; i < expressions.length; i++) {
+            final Expression expression = expressions[i] == null ? EmptyExpression.INSTANCE : expressions[i];
+            MutableNode node = root;
+            if (expression.hasWildcard()) {
+                // 通配表达式的结果是值列表，整体作为根节点下的一个节点
+                final MutableNode child = EvaluationPlan.hasMethod(expression) ? node.unsharedChild(expression) : node.child(expression.toString(), () -> expression);
+                child.outputs.add(i);
+                continue;
+            }
+            for (Expression singleExpression : expression.nodes()) {
+                if (singleExpression instanceof ObjectExpression) {
+                    node = node.child("." + singleExpression.getName(), () -> new ObjectExpression(singleExpression.getName()));
+                } else if (singleExpression instanceof ArrayExpression) {
+                    final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                    if (arrayExpression.hasPropertyName()) {
+                        node = node.child("." + arrayExpression.getName(), () -> new ObjectExpression(arrayExpression.getName()));
+                    }
+                    for (int j = 0; j < arrayExpression.indexArray.length; j++) {
+                        final ArrayExpression indexNode = arrayExpression.indexNode(j);
+                        node = node.child(indexNode.getExpressionValue(), () -> indexNode);
+                    }
+                } else if (singleExpression instanceof MethodExpression) {
+                    final MethodExpression methodExpression = (MethodExpression) singleExpression;
+                    node = node.unsharedChild(new MethodExpression(methodExpression.getName(), methodExpression.arguments));
+                }
+            }
+            node.outputs.add(i);
+        }
+        this.rootNode = root.freeze();
+    }
+
+    /**
+     * 构建投影
+     *
+     * @param expressions 表达式
+     * @return 投影
+     */
+    public static Projection of(Expression... expressions) {
+        return new Projection(expressions.clone());
+    }
+
+    /**
+     * 构建投影
+     *
+     * @param expressions 表达式
+     * @return 投影
+     */
+    public static Projection of(Collection<? extends Expression> expressions) {
+        return new Projection(expressions.toArray(Expression[]::new));
+    }
+
+    /**
+     * 构建投影
+     *
+     * @param expressionValues 表达式字符串
+     * @return 投影
+     */
+    public static Projection of(String... expressionValues) {
+        final ExpressionCache expressionCache = ExpressionUtils.getExpressionCache();
+        final Expression[] expressions = new Expression[expressionValues.length];
+        for (int i = 0; i < expressionValues.length; i++) {
+            expressions[i] = expressionCache.get(expressionValues[i]);
+        }
+        return new Projection(expressions);
+    }
+
+    /**
+     * 表达式数量
+     */
+    public int size() {
+        return expressions.length;
+    }
+
+    public List<Expression> getExpressions() {
+        return Collections.unmodifiableList(Arrays.asList(expressions));
+    }
+
+    /**
+     * 获取值
+     *
+     * @param instance 实例
+     * @return 值数组，与构建时的表达式顺序一致
+     */
+    public Object[] getValues(Object instance) {
+        final Object[] values = new Object[expressions.length];
+        if (instance != null) {
+            evaluate(rootNode, instance, instance, values);
+        }
+        return values;
+    }
+
+    /**
+     * 获取值
+     *
+     * @param instance 实例
+     * @return 以表达式字符串为键的有序Map
+     */
+    public Map<String, Object> getValueMap(Object instance) {
+        final Object[] values = getValues(instance);
+        final Map<String, Object> valueMap = new LinkedHashMap<>((int) (values.length / 0.75f) + 1);
+        for (int i = 0; i < values.length; i++) {
+            valueMap.put(String.valueOf(expressions[i]), values[i]);
+        }
+        return valueMap;
+    }
+
+    private static void evaluate(Node node, Object value, Object rootInstance, Object[] values) {
+        for (int output : node.outputs) {
+            values[output] = value;
+        }
+        if (value == null) {
+            return;
+        }
+        for (Node child : node.children) {
+            evaluate(child, child.step.evaluate(value, rootInstance), rootInstance, values);
+        }
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+
+        /* 单节点表达式，根节点为null */
+        private final CompiledExpression step;
+
+        private final Node[] children;
+
+        /* 在该节点结束的表达式下标 */
+        private final int[] outputs;
+
+        private Node(CompiledExpression step, Node[] children, int[] outputs) {
+            this.step = step;
+            this.children = children;
+            this.outputs = outputs;
+        }
+    }
+
+    /**
+     * 构建期的前缀树节点
+     */
+    private static final class MutableNode {
+
+        private final Expression step;
+
+        /* 键为节点字符串，不共享的节点以独立的对象为键 */
+        private final Map<Object, MutableNode> children = new LinkedHashMap<>();
+
+        private final List<Integer> outputs = new ArrayList<>(1);
+
+        private MutableNode(Expression step) {
+            this.step = step;
+        }
+
+        private MutableNode child(String key, Supplier<Expression> stepSupplier) {
+            return children.computeIfAbsent(key, k -> new MutableNode(stepSupplier.get()));
+        }
+
+        private MutableNode unsharedChild(Expression step) {
+            final MutableNode child = new MutableNode(step);
+            children.put(new Object(), child);
+            return child;
+        }
+
+        private Node freeze() {
+            final Node[] frozenChildren = new Node[children.size()];
+            int i = 0;
+            for (MutableNode child : children.values()) {
+                frozenChildren[i++] = child.freeze();
+            }
+            return new Node(
+                    step == null ? null : step.compile(),
+                    frozenChildren,
+                    outputs.stream().mapToInt(Integer::intValue).toArray()
+            );
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import com.github.developframework.expression.exception.NoSuchPropertyException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Type;
+
+/**
+ * 属性访问器
+ * 持有已解析的getter/setter方法或字段的MethodHandle，按（类型，属性名称）缓存复用
+ * 属性不存在时为缺失访问器：读取按{@link MissPolicy}抛出缓存的异常或返回null，写入总是抛出异常
+ *
+ * @author qiushui
+ */
+final class PropertyAccessor {
+
+    private static final MethodHandle INVOKE_FAILED;
+
+    private static final MethodHandle MISSING_VALUE;
+
+    static {
+        try {
+            INVOKE_FAILED = MethodHandles.lookup().findStatic(PropertyAccessor.class, "invokeFailed", MethodType.methodType(ExpressionException.class, String.class, Throwable.class));
+            MISSING_VALUE = MethodHandles.lookup().findVirtual(PropertyAccessor.class, "missingValue", MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /* 解析访问器时的接收者类型 */
+    final Class<?> ownerClass;
+
+    /* 属性名称 */
+    final String propertyName;
+
+    /* 属性类型 */
+    final Class<?> propertyType;
+
+    /* 属性的泛型类型，未知时与属性类型相同 */
+    final Type genericType;
+
+    /* 访问成员名称（getter方法名或字段名） */
+    final String memberName;
+
+    /* 类型为 (Object)Object 的读取句柄，调用异常已转换为ExpressionException */
+    final MethodHandle getter;
+
+    /* 类型为 (Object, Object)void 的写入句柄，属性不可写时为null */
+    private final MethodHandle setter;
+
+    /* 写入成员名称（setter方法名或字段名） */
+    private final String setterMemberName;
+
+    /* 属性不存在时的异常，属性存在时为null */
+    private final NoSuchPropertyException missingException;
+
+    /* 原始类型读取句柄，仅当属性类型可拓宽为对应原始类型时存在 */
+    private final MethodHandle intGetter;
+
+    private final MethodHandle longGetter;
+
+    private final MethodHandle doubleGetter;
+
+    private final MethodHandle booleanGetter;
+
+    /**
+     * 构造方法
+     *
+     * @param ownerClass   接收者类型
+     * @param propertyName 属性名称
+     * @param memberName   访问成员名称
+     * @param rawGetter    类型为 (Object)propertyType 的读取句柄
+     */
+    PropertyAccessor(Class<?> ownerClass, String propertyName, String memberName, MethodHandle rawGetter) {
+        this(ownerClass, propertyName, memberName, rawGetter, null, null);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param ownerClass       接收者类型
+     * @param propertyName     属性名称
+     * @param memberName       访问成员名称
+     * @param rawGetter        类型为 (Object)propertyType 的读取句柄
+     * @param setterMemberName 写入成员名称
+     * @param rawSetter        类型为 (Object, propertyType)void 的写入句柄，不可写时为null
+     */
+    PropertyAccessor(Class<?> ownerClass, String propertyName, String memberName, MethodHandle rawGetter, String setterMemberName, MethodHandle rawSetter) {
+        this(ownerClass, propertyName, memberName, rawGetter, setterMemberName, rawSetter, null);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param ownerClass       接收者类型
+     * @param propertyName     属性名称
+     * @param memberName       访问成员名称
+     * @param rawGetter        类型为 (Object)propertyType 的读取句柄
+     * @param setterMemberName 写入成员名称
+     * @param rawSetter        类型为 (Object, propertyType)void 的写入句柄，不可写时为null
+     * @param genericType      属性的泛型类型，为null时使用属性类型
+     */
+    PropertyAccessor(Class<?> ownerClass, String propertyName, String memberName, MethodHandle rawGetter, String setterMemberName, MethodHandle rawSetter, Type genericType) {
+        this.ownerClass = ownerClass;
+        this.propertyName = propertyName;
+        this.propertyType = rawGetter.type().returnType();
+        this.genericType = genericType == null ? propertyType : genericType;
+        this.memberName = memberName;
+        this.getter = adapt(rawGetter, Object.class);
+        this.intGetter = Primitives.isIntCompatible(propertyType) ? adapt(rawGetter, int.class) : null;
+        this.longGetter = Primitives.isLongCompatible(propertyType) ? adapt(rawGetter, long.class) : null;
+        this.doubleGetter = Primitives.isDoubleCompatible(propertyType) ? adapt(rawGetter, double.class) : null;
+        this.booleanGetter = propertyType == boolean.class ? adapt(rawGetter, boolean.class) : null;
+        this.setterMemberName = setterMemberName;
+        this.setter = rawSetter == null ? null : rawSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        this.missingException = null;
+    }
+
+    /**
+     * 构造缺失访问器
+     *
+     * @param ownerClass       接收者类型
+     * @param propertyName     属性名称
+     * @param missingException 属性不存在的异常
+     */
+    PropertyAccessor(Class<?> ownerClass, String propertyName, NoSuchPropertyException missingException) {
+        this.ownerClass = ownerClass;
+        this.propertyName = propertyName;
+        this.propertyType = Object.class;
+        this.genericType = Object.class;
+        this.memberName = propertyName;
+        this.missingException = missingException;
+        this.getter = MISSING_VALUE.bindTo(this);
+        this.intGetter = null;
+        this.longGetter = null;
+        this.doubleGetter = null;
+        this.booleanGetter = null;
+        this.setter = null;
+        this.setterMemberName = null;
+    }
+
+    /**
+     * 属性是否不存在
+     *
+     * @return 判断结果
+     */
+    boolean isMissing() {
+        return missingException != null;
+    }
+
+    /**
+     * 属性不存在时的异常
+     *
+     * @return 异常，属性存在时为null
+     */
+    NoSuchPropertyException getMissingException() {
+        return missingException;
+    }
+
+    /**
+     * 是否可写
+     *
+     * @return 判断结果
+     */
+    boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * 写入属性值，数值按属性类型转换
+     *
+     * @param instance 实例
+     * @param value    值
+     */
+    void setValue(Object instance, Object value) {
+        if (missingException != null) {
+            throw missingException;
+        }
+        if (setter == null) {
+            throw new ExpressionException("The property \"%s\" in class \"%s\" is not writable", propertyName, ownerClass.getName());
+        }
+        final Object converted = Primitives.convert(value, propertyType);
+        try {
+            setter.invokeExact(instance, converted);
+        } catch (Throwable e) {
+            throw invokeFailed(setterMemberName, e);
+        }
+    }
+
+    /**
+     * 读取属性值
+     *
+     * @param instance 实例
+     * @return 值
+     */
+    Object getValue(Object instance) {
+        try {
+            return getter.invokeExact(instance);
+        } catch (Throwable e) {
+            throw invokeFailed(memberName, e);
+        }
+    }
+
+    int getInt(Object instance) {
+        if (intGetter == null) {
+            return Primitives.toInt(getValue(instance));
+        }
+        try {
+            return (int) intGetter.invokeExact(instance);
+        } catch (Throwable e) {
+            throw invokeFailed(memberName, e);
+        }
+    }
+
+    long getLong(Object instance) {
+        if (longGetter == null) {
+            return Primitives.toLong(getValue(instance));
+        }
+        try {
+            return (long) longGetter.invokeExact(instance);
+        } catch (Throwable e) {
+            throw invokeFailed(memberName, e);
+        }
+    }
+
+    double getDouble(Object instance) {
+        if (doubleGetter == null) {
+            return Primitives.toDouble(getValue(instance));
+        }
+        try {
+            return (double) doubleGetter.invokeExact(instance);
+        } catch (Throwable e) {
+            throw invokeFailed(memberName, e);
+        }
+    }
+
+    boolean getBoolean(Object instance) {
+        if (booleanGetter == null) {
+            return Primitives.toBoolean(getValue(instance));
+        }
+        try {
+            return (boolean) booleanGetter.invokeExact(instance);
+        } catch (Throwable e) {
+            throw invokeFailed(memberName, e);
+        }
+    }
+
+    /**
+     * 将读取句柄适配为 (Object)returnType 类型，并把调用异常转换为ExpressionException
+     *
+     * @param rawGetter  读取句柄
+     * @param returnType 返回类型
+     * @return 适配后的句柄
+     */
+    private MethodHandle adapt(MethodHandle rawGetter, Class<?> returnType) {
+        final MethodHandle handler = MethodHandles.filterReturnValue(
+                MethodHandles.insertArguments(INVOKE_FAILED, 0, memberName),
+                MethodHandles.throwException(returnType, ExpressionException.class)
+        );
+        return MethodHandles.catchException(rawGetter.asType(MethodType.methodType(returnType, Object.class)), Throwable.class, handler);
+    }
+
+    @SuppressWarnings("unused")
+    private Object missingValue(Object instance) {
+        final MissPolicy missPolicy = PropertyAccessors.getMissPolicy();
+        if (missPolicy == MissPolicy.THROW) {
+            throw missingException;
+        }
+        return missPolicy == MissPolicy.RETURN_DEFAULT ? PropertyAccessors.getMissDefaultValue() : null;
+    }
+
+    private static ExpressionException invokeFailed(String memberName, Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof ExpressionException) {
+            return (ExpressionException) e;
+        }
+        return new ExpressionException("%s invoke failed.", memberName);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.developframework.expression;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 属性访问器表
+ * 一个实现对应一个类型，以普通Java代码读写该类型的属性，通常由注解处理器为标注了{@link ExpressionAccessible}的类型生成
+ * 实现通过ServiceLoader发现，也可以调用{@link ExpressionUtils#registerAccessorTable(PropertyAccessorTable)}手动注册
+ * 表中未登记的属性仍通过反射解析
+ *
+ * @author qiushui
+ */
+public interface PropertyAccessorTable {
+
+    /**
+     * 访问器表对应的类型，只作用于该类型本身，不作用于子类
+     *
+     * @return 类型
+     */
+    Class<?> getType();
+
+    /**
+     * 登记属性访问器
+     *
+     * @param registry 登记器
+     */
+    void registerAccessors(Registry registry);
+
+    /**
+     * 属性访问器登记器
+     */
+    interface Registry {
+
+        /**
+         * 登记属性
+         *
+         * @param propertyName 属性名称
+         * @param propertyType 属性类型，原始类型属性使用原始类型的Class，例如int.class
+         * @param getter       读取函数
+         * @param setter       写入函数，属性不可写时为null
+         * @param <T>          属性类型
+         */
+        <T> void register(String propertyName, Class<T> propertyType, Function<Object, T> getter, BiConsumer<Object, T> setter);
+
+        /**
+         * 登记int属性，读写不经过装箱
+         *
+         * @param propertyName 属性名称
+         * @param getter       读取函数
+         * @param setter       写入函数，属性不可写时为null
+         */
+        default void registerInt(String propertyName, ToIntFunction<Object> getter, ObjIntConsumer<Object> setter) {
+            register(propertyName, int.class, getter == null ? null : getter::applyAsInt, setter == null ? null : setter::accept);
+        }
+
+        /**
+         * 登记long属性，读写不经过装箱
+         *
+         * @param propertyName 属性名称
+         * @param getter       读取函数
+         * @param setter       写入函数，属性不可写时为null
+         */
+        default void registerLong(String propertyName, ToLongFunction<Object> getter, ObjLongConsumer<Object> setter) {
+            register(propertyName, long.class, getter == null ? null : getter::applyAsLong, setter == null ? null : setter::accept);
+        }
+
+        /**
+         * 登记double属性，读写不经过装箱
+         *
+         * @param propertyName 属性名称
+         * @param getter       读取函数
+         * @param setter       写入函数，属性不可写时为null
+         */
+        default void registerDouble(String propertyName, ToDoubleFunction<Object> getter, ObjDoubleConsumer<Object> setter) {
+            register(propertyName, double.class, getter == null ? null : getter::applyAsDouble, setter == null ? null : setter::accept);
+        }
+    }
+}
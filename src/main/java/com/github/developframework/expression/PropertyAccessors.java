@@ -0,0 +1,237 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+import com.github.developframework.expression.exception.NoSuchPropertyException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 属性访问器缓存
+ * 以ClassValue按类型保存属性访问器表，类加载器卸载时随类型一起回收
+ * 不存在的属性同样缓存一个缺失访问器（负缓存），重复访问不再查找类型层级
+ * 属性由类型选定的{@link PropertyResolver}解析；类型存在{@link PropertyAccessorTable}时，首次使用该类型即以表中登记的访问器填充，表中的属性不再反射查找
+ *
+ * @author qiushui
+ */
+final class PropertyAccessors {
+
+    /* 类型 -> 属性访问器表 */
+    private static final ConcurrentMap<Class<?>, PropertyAccessorTable> TABLES = loadTables();
+
+    private static final ClassValue<ConcurrentMap<String, PropertyAccessor>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<String, PropertyAccessor> computeValue(Class<?> type) {
+            final ConcurrentMap<String, PropertyAccessor> accessorMap = new ConcurrentHashMap<>();
+            final PropertyAccessorTable table = TABLES.get(type);
+            if (table != null) {
+                fill(accessorMap, table);
+            }
+            return accessorMap;
+        }
+    };
+
+    /* 原始类型函数的调用句柄，访问器表登记的原始类型属性不经过装箱 */
+    private static final MethodHandle APPLY_AS_INT;
+
+    private static final MethodHandle ACCEPT_INT;
+
+    private static final MethodHandle APPLY_AS_LONG;
+
+    private static final MethodHandle ACCEPT_LONG;
+
+    private static final MethodHandle APPLY_AS_DOUBLE;
+
+    private static final MethodHandle ACCEPT_DOUBLE;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            APPLY_AS_INT = lookup.findVirtual(ToIntFunction.class, "applyAsInt", MethodType.methodType(int.class, Object.class));
+            ACCEPT_INT = lookup.findVirtual(ObjIntConsumer.class, "accept", MethodType.methodType(void.class, Object.class, int.class));
+            APPLY_AS_LONG = lookup.findVirtual(ToLongFunction.class, "applyAsLong", MethodType.methodType(long.class, Object.class));
+            ACCEPT_LONG = lookup.findVirtual(ObjLongConsumer.class, "accept", MethodType.methodType(void.class, Object.class, long.class));
+            APPLY_AS_DOUBLE = lookup.findVirtual(ToDoubleFunction.class, "applyAsDouble", MethodType.methodType(double.class, Object.class));
+            ACCEPT_DOUBLE = lookup.findVirtual(ObjDoubleConsumer.class, "accept", MethodType.methodType(void.class, Object.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /* 属性不存在时的处理策略 */
+    private static volatile MissPolicy missPolicy = MissPolicy.THROW;
+
+    /* MissPolicy.RETURN_DEFAULT时返回的默认值 */
+    private static volatile Object missDefaultValue;
+
+    private PropertyAccessors() {
+    }
+
+    static MissPolicy getMissPolicy() {
+        return missPolicy;
+    }
+
+    static void setMissPolicy(MissPolicy missPolicy) {
+        PropertyAccessors.missPolicy = missPolicy;
+    }
+
+    static Object getMissDefaultValue() {
+        return missDefaultValue;
+    }
+
+    static void setMissDefaultValue(Object missDefaultValue) {
+        PropertyAccessors.missDefaultValue = missDefaultValue;
+    }
+
+    /**
+     * 类型是否选定了内置的Map解析器，解释执行时Map直接按键取值，不经过属性访问器
+     *
+     * @param clazz 类型
+     * @return 判断结果
+     */
+    static boolean isMap(Class<?> clazz) {
+        return PropertyResolvers.of(clazz) == PropertyResolvers.MAP;
+    }
+
+    /**
+     * 注册属性访问器表，替换该类型已有的同名属性访问器
+     *
+     * @param table 属性访问器表
+     */
+    static void registerTable(PropertyAccessorTable table) {
+        TABLES.put(table.getType(), table);
+        fill(ACCESSORS.get(table.getType()), table);
+    }
+
+    /**
+     * 注销属性访问器表，该类型的属性重新由解析器解析
+     *
+     * @param type 类型
+     * @return 该类型存在访问器表时返回true
+     */
+    static boolean unregisterTable(Class<?> type) {
+        if (TABLES.remove(type) == null) {
+            return false;
+        }
+        invalidate(type);
+        return true;
+    }
+
+    /**
+     * 丢弃类型已缓存的属性访问器，下次访问时重新解析
+     *
+     * @param type 类型
+     */
+    static void invalidate(Class<?> type) {
+        ACCESSORS.remove(type);
+    }
+
+    private static ConcurrentMap<Class<?>, PropertyAccessorTable> loadTables() {
+        final ConcurrentMap<Class<?>, PropertyAccessorTable> tables = new ConcurrentHashMap<>();
+        try {
+            for (PropertyAccessorTable table : ServiceLoader.load(PropertyAccessorTable.class)) {
+                tables.put(table.getType(), table);
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new ExpressionException("load property accessor tables failed: %s", e.getMessage());
+        }
+        return tables;
+    }
+
+    /**
+     * 以访问器表填充属性访问器
+     *
+     * @param accessorMap 属性名称 -> 属性访问器
+     * @param table       属性访问器表
+     */
+    private static void fill(ConcurrentMap<String, PropertyAccessor> accessorMap, PropertyAccessorTable table) {
+        final Class<?> type = table.getType();
+        table.registerAccessors(new PropertyAccessorTable.Registry() {
+            @Override
+            public <T> void register(String propertyName, Class<T> propertyType, Function<Object, T> getter, BiConsumer<Object, T> setter) {
+                if (propertyName == null || propertyType == null || getter == null) {
+                    throw new ExpressionException("Illegal accessor of property \"%s\" in table \"%s\"", propertyName, table.getClass().getName());
+                }
+                accessorMap.put(propertyName, newAccessor(type, propertyName, PropertyResolver.Property.of(propertyType, getter, setter)));
+            }
+
+            @Override
+            public void registerInt(String propertyName, ToIntFunction<Object> getter, ObjIntConsumer<Object> setter) {
+                registerPrimitive(propertyName, getter, setter, APPLY_AS_INT, ACCEPT_INT);
+            }
+
+            @Override
+            public void registerLong(String propertyName, ToLongFunction<Object> getter, ObjLongConsumer<Object> setter) {
+                registerPrimitive(propertyName, getter, setter, APPLY_AS_LONG, ACCEPT_LONG);
+            }
+
+            @Override
+            public void registerDouble(String propertyName, ToDoubleFunction<Object> getter, ObjDoubleConsumer<Object> setter) {
+                registerPrimitive(propertyName, getter, setter, APPLY_AS_DOUBLE, ACCEPT_DOUBLE);
+            }
+
+            private void registerPrimitive(String propertyName, Object getter, Object setter, MethodHandle apply, MethodHandle accept) {
+                if (propertyName == null || getter == null) {
+                    throw new ExpressionException("Illegal accessor of property \"%s\" in table \"%s\"", propertyName, table.getClass().getName());
+                }
+                final PropertyResolver.Property property = PropertyResolver.Property.of(apply.bindTo(getter), setter == null ? null : accept.bindTo(setter));
+                accessorMap.put(propertyName, newAccessor(type, propertyName, property));
+            }
+        });
+    }
+
+    /**
+     * 获取属性访问器，属性不存在时返回缺失访问器，见{@link PropertyAccessor#isMissing()}
+     *
+     * @param clazz        类型
+     * @param propertyName 属性名称
+     * @return 属性访问器
+     */
+    static PropertyAccessor getAccessor(Class<?> clazz, String propertyName) {
+        final ConcurrentMap<String, PropertyAccessor> accessorMap = ACCESSORS.get(clazz);
+        PropertyAccessor accessor = accessorMap.get(propertyName);
+        if (accessor == null) {
+            accessor = resolve(clazz, propertyName);
+            ExpressionUtils.metrics().onAccessorResolved(clazz, propertyName, accessor.isMissing());
+            final PropertyAccessor existing = accessorMap.putIfAbsent(propertyName, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * 使用类型选定的属性解析器解析属性访问器
+     *
+     * @param clazz        类型
+     * @param propertyName 属性名称
+     * @return 属性访问器
+     */
+    private static PropertyAccessor resolve(Class<?> clazz, String propertyName) {
+        final PropertyResolver.Property property = PropertyResolvers.of(clazz).resolve(clazz, propertyName);
+        if (property == null) {
+            return new PropertyAccessor(clazz, propertyName, new NoSuchPropertyException(clazz, propertyName));
+        }
+        return newAccessor(clazz, propertyName, property);
+    }
+
+    private static PropertyAccessor newAccessor(Class<?> clazz, String propertyName, PropertyResolver.Property property) {
+        final String getterName = property.getterName == null ? propertyName : property.getterName;
+        final String setterName = property.setterName == null ? propertyName : property.setterName;
+        return new PropertyAccessor(clazz, propertyName, getterName, property.getter, property.setter == null ? null : setterName, property.setter, property.genericType);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 属性解析器
+ * 每个类型在首次访问属性时选定一个解析器，之后该类型的属性都由它解析，解析结果按（类型，属性名称）缓存
+ * 选择顺序：{@link ExpressionUtils#addPropertyResolver(PropertyResolver)}添加的解析器、通过ServiceLoader发现的解析器、
+ * 内置的Map、record、JavaBean解析器；JavaBean解析器支持只有getter方法没有字段的属性，没有getter方法时直接读写字段
+ * <p>
+ * 可以为JSON节点等树模型实现解析器，把属性读取委托给树模型自身的取值方法
+ *
+ * @author qiushui
+ */
+public interface PropertyResolver {
+
+    /**
+     * 是否支持该类型
+     *
+     * @param type 类型
+     * @return 判断结果
+     */
+    boolean supports(Class<?> type);
+
+    /**
+     * 解析属性
+     *
+     * @param type         类型
+     * @param propertyName 属性名称
+     * @return 属性读写器，属性不存在时返回null
+     */
+    Property resolve(Class<?> type, String propertyName);
+
+    /**
+     * 属性读写器
+     */
+    final class Property {
+
+        private static final MethodHandle FUNCTION_APPLY;
+
+        private static final MethodHandle CONSUMER_ACCEPT;
+
+        static {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                FUNCTION_APPLY = lookup.findVirtual(Function.class, "apply", MethodType.methodType(Object.class, Object.class));
+                CONSUMER_ACCEPT = lookup.findVirtual(BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /* 类型为 (Object)propertyType 的读取句柄 */
+        final MethodHandle getter;
+
+        /* 读取成员名称，用于错误信息，为null时使用属性名称 */
+        final String getterName;
+
+        /* 类型为 (Object, propertyType)void 的写入句柄，不可写时为null */
+        final MethodHandle setter;
+
+        /* 写入成员名称，用于错误信息，为null时使用属性名称 */
+        final String setterName;
+
+        /* 属性的泛型类型，为null时使用读取句柄的返回类型 */
+        final Type genericType;
+
+        Property(String getterName, MethodHandle getter, String setterName, MethodHandle setter) {
+            this(getterName, getter, setterName, setter, null);
+        }
+
+        Property(String getterName, MethodHandle getter, String setterName, MethodHandle setter, Type genericType) {
+            this.getterName = getterName;
+            this.getter = getter;
+            this.setterName = setterName;
+            this.setter = setter;
+            this.genericType = genericType;
+        }
+
+        /**
+         * 以函数创建属性读写器，原始类型属性在句柄边界拆装箱
+         *
+         * @param propertyType 属性类型，原始类型属性使用原始类型的Class，例如int.class
+         * @param getter       读取函数
+         * @param setter       写入函数，属性不可写时为null
+         * @param <T>          属性类型
+         * @return 属性读写器
+         */
+        public static <T> Property of(Class<T> propertyType, Function<Object, T> getter, BiConsumer<Object, T> setter) {
+            if (propertyType == null || getter == null) {
+                throw new ExpressionException("can't set null to property type or getter.");
+            }
+            return new Property(
+                    null,
+                    FUNCTION_APPLY.bindTo(getter).asType(MethodType.methodType(propertyType, Object.class)),
+                    null,
+                    setter == null ? null : CONSUMER_ACCEPT.bindTo(setter).asType(MethodType.methodType(void.class, Object.class, propertyType))
+            );
+        }
+
+        /**
+         * 以句柄创建属性读写器
+         *
+         * @param getter 类型为 (接收者类型)属性类型 的读取句柄
+         * @param setter 类型为 (接收者类型, 属性类型)void 的写入句柄，属性不可写时为null
+         * @return 属性读写器
+         */
+        public static Property of(MethodHandle getter, MethodHandle setter) {
+            if (getter == null || getter.type().parameterCount() != 1 || getter.type().returnType() == void.class) {
+                throw new ExpressionException("The getter handle must be (receiver)value: %s", getter);
+            }
+            final Class<?> propertyType = getter.type().returnType();
+            if (setter != null && (setter.type().parameterCount() != 2 || setter.type().parameterType(1) != propertyType)) {
+                throw new ExpressionException("The setter handle must be (receiver, %s)void: %s", propertyType.getName(), setter);
+            }
+            return new Property(
+                    null,
+                    getter.asType(getter.type().changeParameterType(0, Object.class)),
+                    null,
+                    setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, propertyType))
+            );
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.PropertyResolver.Property;
+import com.github.developframework.expression.exception.ExpressionException;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 属性解析器注册表与内置解析器
+ * 以ClassValue按类型保存选定的解析器，每个类型只选择一次
+ *
+ * @author qiushui
+ */
+final class PropertyResolvers {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodHandle MAP_GET;
+
+    private static final MethodHandle MAP_PUT;
+
+    static {
+        try {
+            MAP_GET = LOOKUP.findStatic(PropertyResolvers.class, "mapGet", MethodType.methodType(Object.class, Object.class, String.class));
+            MAP_PUT = LOOKUP.findStatic(PropertyResolvers.class, "mapPut", MethodType.methodType(void.class, Object.class, String.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Map解析器，键即属性名称，属性总是存在且可写
+     */
+    static final PropertyResolver MAP = new PropertyResolver() {
+        @Override
+        public boolean supports(Class<?> type) {
+            return Map.class.isAssignableFrom(type);
+        }
+
+        @Override
+        public Property resolve(Class<?> type, String propertyName) {
+            return new Property("get", MethodHandles.insertArguments(MAP_GET, 1, propertyName), "put", MethodHandles.insertArguments(MAP_PUT, 1, propertyName));
+        }
+    };
+
+    /**
+     * JavaBean解析器
+     * 存在字段时按字段类型查找getter/setter方法，不存在时直接读写字段，final字段且无setter方法时不可写；
+     * 不存在字段时查找getter方法（计算属性），以及参数类型与getter返回类型相同的setter方法
+     */
+    static final PropertyResolver BEAN = new PropertyResolver() {
+        @Override
+        public boolean supports(Class<?> type) {
+            return true;
+        }
+
+        @Override
+        public Property resolve(Class<?> type, String propertyName) {
+            final Field field = getDeclaredField(type, propertyName);
+            return field != null ? fieldProperty(type, field) : methodProperty(type, propertyName);
+        }
+    };
+
+    /**
+     * record解析器，组件通过访问器方法读取且不可写，其它属性交给JavaBean解析器
+     * 为兼容Java 11编译，以父类是否为java.lang.Record判断record类型
+     */
+    static final PropertyResolver RECORD = new PropertyResolver() {
+        @Override
+        public boolean supports(Class<?> type) {
+            final Class<?> superclass = type.getSuperclass();
+            return superclass != null && "java.lang.Record".equals(superclass.getName());
+        }
+
+        @Override
+        public Property resolve(Class<?> type, String propertyName) {
+            final Field field = getDeclaredField(type, propertyName);
+            if (field != null && !Modifier.isStatic(field.getModifiers())) {
+                final Method accessor = MethodUtils.getAccessibleMethod(type, propertyName);
+                if (accessor != null && accessor.getReturnType() == field.getType()) {
+                    try {
+                        return new Property(propertyName, adapt(LOOKUP.unreflect(accessible(accessor, type)), false), null, null, accessor.getGenericReturnType());
+                    } catch (IllegalAccessException e) {
+                        throw new ExpressionException("Illegal access method \"%s\" in class \"%s\"", propertyName, type.getName());
+                    }
+                }
+            }
+            return BEAN.resolve(type, propertyName);
+        }
+    };
+
+    /* 内置解析器，按顺序选择 */
+    private static final List<PropertyResolver> BUILT_IN = List.of(MAP, RECORD, BEAN);
+
+    /* 用户解析器，先添加的优先 */
+    private static final List<PropertyResolver> RESOLVERS = loadResolvers();
+
+    /* 选定了用户解析器的类型，移除解析器时据此失效选择，弱引用不阻止类型卸载 */
+    private static final Set<Class<?>> CUSTOMIZED = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private static final ClassValue<PropertyResolver> SELECTED = new ClassValue<>() {
+        @Override
+        protected PropertyResolver computeValue(Class<?> type) {
+            for (PropertyResolver resolver : RESOLVERS) {
+                if (resolver.supports(type)) {
+                    CUSTOMIZED.add(type);
+                    return resolver;
+                }
+            }
+            for (PropertyResolver resolver : BUILT_IN) {
+                if (resolver.supports(type)) {
+                    return resolver;
+                }
+            }
+            return BEAN;
+        }
+    };
+
+    private PropertyResolvers() {
+    }
+
+    /**
+     * 获取类型选定的解析器
+     *
+     * @param type 类型
+     * @return 解析器
+     */
+    static PropertyResolver of(Class<?> type) {
+        return SELECTED.get(type);
+    }
+
+    /**
+     * 添加用户解析器，只对尚未选定解析器的类型生效
+     *
+     * @param resolver 解析器
+     */
+    static void add(PropertyResolver resolver) {
+        RESOLVERS.add(resolver);
+    }
+
+    /**
+     * 移除用户解析器，选定了该解析器的类型重新选择解析器，并丢弃已缓存的属性访问器
+     *
+     * @param resolver 解析器
+     * @return 解析器存在时返回true
+     */
+    static boolean remove(PropertyResolver resolver) {
+        if (!RESOLVERS.remove(resolver)) {
+            return false;
+        }
+        final List<Class<?>> types;
+        synchronized (CUSTOMIZED) {
+            types = new ArrayList<>(CUSTOMIZED);
+        }
+        for (Class<?> type : types) {
+            if (SELECTED.get(type) == resolver) {
+                CUSTOMIZED.remove(type);
+                SELECTED.remove(type);
+                PropertyAccessors.invalidate(type);
+            }
+        }
+        return true;
+    }
+
+    private static List<PropertyResolver> loadResolvers() {
+        final List<PropertyResolver> resolvers = new CopyOnWriteArrayList<>();
+        try {
+            for (PropertyResolver resolver : ServiceLoader.load(PropertyResolver.class)) {
+                resolvers.add(resolver);
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new ExpressionException("load property resolvers failed: %s", e.getMessage());
+        }
+        return resolvers;
+    }
+
+    private static Property fieldProperty(Class<?> clazz, Field field) {
+        final String getterMethodName = getGetterMethodName(field.getName(), field.getType());
+        final String setterMethodName = "set" + capitalize(field.getName());
+        final Method getterMethod = MethodUtils.getMatchingMethod(clazz, getterMethodName);
+        final Method setterMethod = MethodUtils.getMatchingMethod(clazz, setterMethodName, field.getType());
+        final boolean fieldWritable = !Modifier.isFinal(field.getModifiers());
+        try {
+            final MethodHandle getter;
+            final String getterMemberName;
+            final Type genericType;
+            if (getterMethod != null) {
+                getter = adapt(LOOKUP.unreflect(accessible(getterMethod, clazz)), Modifier.isStatic(getterMethod.getModifiers()));
+                getterMemberName = getterMethodName;
+                genericType = getterMethod.getGenericReturnType();
+            } else {
+                getter = adapt(LOOKUP.unreflectGetter(field), Modifier.isStatic(field.getModifiers()));
+                getterMemberName = field.getName();
+                genericType = field.getGenericType();
+            }
+            if (setterMethod != null && setterMethod.getParameterTypes()[0] == field.getType()) {
+                final MethodHandle setter = adapt(LOOKUP.unreflect(accessible(setterMethod, clazz)), Modifier.isStatic(setterMethod.getModifiers()));
+                return new Property(getterMemberName, getter, setterMethodName, setter, genericType);
+            } else if (fieldWritable) {
+                final MethodHandle setter = adapt(LOOKUP.unreflectSetter(field), Modifier.isStatic(field.getModifiers()));
+                return new Property(getterMemberName, getter, field.getName(), setter, genericType);
+            }
+            return new Property(getterMemberName, getter, null, null, genericType);
+        } catch (IllegalAccessException e) {
+            throw new ExpressionException("Illegal access field \"%s\" in class \"%s\"", field.getName(), clazz.getName());
+        }
+    }
+
+    private static Property methodProperty(Class<?> clazz, String propertyName) {
+        final String capitalized = capitalize(propertyName);
+        Method getterMethod = MethodUtils.getMatchingMethod(clazz, "get" + capitalized);
+        if (getterMethod == null || getterMethod.getReturnType() == void.class) {
+            getterMethod = MethodUtils.getMatchingMethod(clazz, "is" + capitalized);
+            if (getterMethod == null || (getterMethod.getReturnType() != boolean.class && getterMethod.getReturnType() != Boolean.class)) {
+                return null;
+            }
+        }
+        final Method setterMethod = MethodUtils.getMatchingMethod(clazz, "set" + capitalized, getterMethod.getReturnType());
+        try {
+            final MethodHandle getter = adapt(LOOKUP.unreflect(accessible(getterMethod, clazz)), Modifier.isStatic(getterMethod.getModifiers()));
+            if (setterMethod != null && setterMethod.getParameterTypes()[0] == getterMethod.getReturnType()) {
+                final MethodHandle setter = adapt(LOOKUP.unreflect(accessible(setterMethod, clazz)), Modifier.isStatic(setterMethod.getModifiers()));
+                return new Property(getterMethod.getName(), getter, setterMethod.getName(), setter, getterMethod.getGenericReturnType());
+            }
+            return new Property(getterMethod.getName(), getter, null, null, getterMethod.getGenericReturnType());
+        } catch (IllegalAccessException e) {
+            throw new ExpressionException("Illegal access method \"%s\" in class \"%s\"", getterMethod.getName(), clazz.getName());
+        }
+    }
+
+    private static Method accessible(Method method, Class<?> clazz) {
+        if (!method.trySetAccessible()) {
+            throw new ExpressionException("Illegal access method \"%s\" in class \"%s\"", method.getName(), clazz.getName());
+        }
+        return method;
+    }
+
+    /**
+     * 将句柄的接收者参数适配为Object类型，返回类型保持不变
+     *
+     * @param handle   句柄
+     * @param isStatic 是否静态成员
+     * @return 适配后的句柄
+     */
+    private static MethodHandle adapt(MethodHandle handle, boolean isStatic) {
+        if (isStatic) {
+            return MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+
+    private static Field getDeclaredField(final Class<?> clazz, String propertyName) {
+        Class<?> temp = clazz;
+        do {
+            Field field = FieldUtils.getDeclaredField(temp, propertyName, true);
+            if (field != null) {
+                return field;
+            } else {
+                temp = temp.getSuperclass();
+            }
+        } while (temp != null && temp != Object.class);
+        return null;
+    }
+
+    private static String getGetterMethodName(String property, Class<?> javaType) {
+        if (javaType == boolean.class || javaType == Boolean.class) {
+            return "is" + capitalize(property);
+        } else {
+            return "get" + capitalize(property);
+        }
+    }
+
+    private static String capitalize(String property) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(property);
+        if (Character.isLowerCase(sb.charAt(0))) {
+            if (sb.length() == 1 || !Character.isUpperCase(sb.charAt(1))) {
+                sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+            }
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Object mapGet(Object map, String key) {
+        return ((Map) map).get(key);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void mapPut(Object map, String key, Object value) {
+        ((Map) map).put(key, value);
+    }
+}
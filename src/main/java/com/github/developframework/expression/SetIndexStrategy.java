@@ -0,0 +1,21 @@
+package com.github.developframework.expression;
+
+/**
+ * 无序Set的索引策略
+ * SortedSet和LinkedHashSet总是按自身顺序遍历，不受该策略影响
+ *
+ * @author qiushui
+ */
+public enum SetIndexStrategy {
+
+    /**
+     * 按迭代顺序遍历到索引位置，不分配内存
+     */
+    ITERATION_ORDER,
+
+    /**
+     * 按元素hashCode排序后取值（1.6.1之前的默认顺序）
+     * 排序结果以Set的identity和size()为键缓存，Set在size()不变的情况下被修改时可能读到旧快照
+     */
+    HASH_CODE_SNAPSHOT
+}
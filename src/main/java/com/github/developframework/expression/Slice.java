@@ -0,0 +1,120 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * 切片
+ * 示例： list[2:5]、list[:3]、list[-3:]、list[1:-1]，起点包含、终点不包含，负数从末尾计算，越界时截断到边界
+ * List返回subList视图，对象数组与原始类型数组返回以原数组为底的List视图，都不复制元素；
+ * 其它集合（Deque、Set等）按迭代顺序单次遍历复制到新的List
+ *
+ * @author qiushui
+ */
+final class Slice {
+
+    /* 省略终点 */
+    static final int OPEN_END = Integer.MAX_VALUE;
+
+    final int start;
+
+    final int end;
+
+    Slice(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 切片
+     *
+     * @param container 数组或集合
+     * @return 切片视图
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    Object apply(Object container) {
+        if (container instanceof List) {
+            final List list = (List) container;
+            final int size = list.size();
+            final int from = from(size);
+            return list.subList(from, to(size, from));
+        } else if (container instanceof Object[]) {
+            final Object[] array = (Object[]) container;
+            final int from = from(array.length);
+            return Arrays.asList(array).subList(from, to(array.length, from));
+        } else if (container.getClass().isArray()) {
+            final int length = Array.getLength(container);
+            final int from = from(length);
+            return new PrimitiveArrayView(container, from, to(length, from) - from);
+        } else if (container instanceof Collection) {
+            final Collection collection = (Collection) container;
+            final int size = collection.size();
+            final int from = from(size);
+            final int to = to(size, from);
+            final List<Object> list = new ArrayList<>(to - from);
+            final Iterator iterator = collection.iterator();
+            for (int i = 0; i < to; i++) {
+                final Object element = iterator.next();
+                if (i >= from) {
+                    list.add(element);
+                }
+            }
+            return list;
+        }
+        throw new ExpressionException("The instance \"%s\" type \"%s\" is not array or Collection", container.toString(), container.getClass());
+    }
+
+    private int from(int size) {
+        return bound(start, size);
+    }
+
+    private int to(int size, int from) {
+        return Math.max(from, bound(end, size));
+    }
+
+    private static int bound(int index, int size) {
+        return index < 0 ? Math.max(0, index + size) : Math.min(index, size);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (start == 0 ? "" : start) + ":" + (end == OPEN_END ? "" : end) + "]";
+    }
+
+    /**
+     * 原始类型数组的切片视图，读写直接作用于原数组
+     */
+    private static final class PrimitiveArrayView extends AbstractList<Object> implements RandomAccess {
+
+        private final Object array;
+
+        private final int offset;
+
+        private final int size;
+
+        private PrimitiveArrayView(Object array, int offset, int size) {
+            this.array = array;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public Object get(int index) {
+            return Primitives.getElement(array, offset + Objects.checkIndex(index, size));
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            final Object old = get(index);
+            Primitives.setElement(array, offset + index, element);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.github.developframework.expression;
+
+import com.github.developframework.expression.exception.ExpressionException;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 通配路径
+ * 在每个通配索引 [*] 处把表达式切分成若干段不含通配的子表达式并分别编译：
+ * 第一段从根对象求值，之后每一段对上一段结果展开后的每个元素求值，多个通配依次展平
+ * 示例： orders[*].items[*].sku 切分为 orders、items、sku
+ * 过滤索引 [?条件] 与通配相同地切分，展开时只保留满足条件的元素
+ * 子表达式是编译管道，属性节点的内联缓存在整个遍历过程中复用
+ *
+ * @author qiushui
+ */
+final class WildcardPath {
+
+    /* 源表达式 */
+    private final Expression expression;
+
+    /* 各段编译后的子表达式，第一段之后的段作用于展开的元素 */
+    private final CompiledExpression[] segments;
+
+    /* 与段对应的过滤谓词，作用于该段之前展开的元素，没有过滤时为null */
+    private final FilterPredicate[] filters;
+
+    WildcardPath(Expression expression) {
+        this.expression = expression;
+        final List<CompiledExpression> segmentList = new ArrayList<>();
+        final List<FilterPredicate> filterList = new ArrayList<>();
+        filterList.add(null);
+        Expression current = EmptyExpression.INSTANCE;
+        for (Expression singleExpression : expression.nodes()) {
+            if (singleExpression instanceof ObjectExpression) {
+                current = append(current, new ObjectExpression(singleExpression.getName()));
+            } else if (singleExpression instanceof MethodExpression) {
+                final MethodExpression methodExpression = (MethodExpression) singleExpression;
+                current = append(current, new MethodExpression(methodExpression.getName(), methodExpression.arguments));
+            } else if (singleExpression instanceof ArrayExpression) {
+                final ArrayExpression arrayExpression = (ArrayExpression) singleExpression;
+                if (arrayExpression.hasPropertyName()) {
+                    current = append(current, new ObjectExpression(arrayExpression.getName()));
+                }
+                for (int i = 0; i < arrayExpression.indexArray.length; i++) {
+                    final int index = arrayExpression.indexArray[i];
+                    if (index == ArrayExpression.WILDCARD) {
+                        segmentList.add(current.compile());
+                        filterList.add(arrayExpression.filterAt(i));
+                        current = EmptyExpression.INSTANCE;
+                    } else {
+                        current = append(current, arrayExpression.indexNode(i));
+                    }
+                }
+            }
+        }
+        segmentList.add(current.compile());
+        this.segments = segmentList.toArray(CompiledExpression[]::new);
+        this.filters = filterList.toArray(FilterPredicate[]::new);
+    }
+
+    private static Expression append(Expression parent, Expression child) {
+        child.setParentExpression(parent);
+        return Expression.intern(child);
+    }
+
+    /**
+     * 求值并收集到列表，最后一层展开时按容器大小预留容量
+     *
+     * @param value        起始值
+     * @param rootInstance 根对象，方法参数从根对象取值
+     * @return 值列表
+     */
+    List<Object> collect(Object value, Object rootInstance) {
+        return collect(value, rootInstance, false);
+    }
+
+    /**
+     * 求值并收集到列表
+     *
+     * @param value        起始值
+     * @param rootInstance 根对象，方法参数从根对象取值
+     * @param lenient      是否宽松求值，属性不存在或索引越界的段得到null
+     * @return 值列表
+     */
+    List<Object> collect(Object value, Object rootInstance, boolean lenient) {
+        final ArrayList<Object> values = new ArrayList<>();
+        collect(evaluate(segments[0], value, rootInstance, lenient), 1, rootInstance, lenient, values);
+        return values;
+    }
+
+    /**
+     * 宽松求值时解释执行段，否则执行编译管道
+     */
+    private static Object evaluate(CompiledExpression segment, Object value, Object rootInstance, boolean lenient) {
+        return lenient ? ExpressionUtils.evaluate(value, rootInstance, segment.getExpression(), true) : segment.evaluate(value, rootInstance);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void collect(Object value, int level, Object rootInstance, boolean lenient, ArrayList<Object> values) {
+        if (level == segments.length) {
+            values.add(value);
+            return;
+        }
+        if (value == null) {
+            return;
+        }
+        final CompiledExpression segment = segments[level];
+        final FilterPredicate filter = filters[level];
+        final int next = level + 1;
+        // 有过滤时结果数量未知，不预留容量
+        final boolean presize = next == segments.length && filter == null;
+        if (value instanceof Collection) {
+            if (presize) {
+                values.ensureCapacity(values.size() + ((Collection) value).size());
+            }
+            for (Object element : (Collection) value) {
+                if (filter == null || filter.test(element, rootInstance)) {
+                    collect(evaluate(segment, element, rootInstance, lenient), next, rootInstance, lenient, values);
+                }
+            }
+        } else if (value instanceof Object[]) {
+            final Object[] array = (Object[]) value;
+            if (presize) {
+                values.ensureCapacity(values.size() + array.length);
+            }
+            for (Object element : array) {
+                if (filter == null || filter.test(element, rootInstance)) {
+                    collect(evaluate(segment, element, rootInstance, lenient), next, rootInstance, lenient, values);
+                }
+            }
+        } else if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            if (presize) {
+                values.ensureCapacity(values.size() + length);
+            }
+            for (int i = 0; i < length; i++) {
+                final Object element = Primitives.getElement(value, i);
+                if (filter == null || filter.test(element, rootInstance)) {
+                    collect(evaluate(segment, element, rootInstance, lenient), next, rootInstance, lenient, values);
+                }
+            }
+        } else if (value instanceof Iterable) {
+            for (Object element : (Iterable) value) {
+                if (filter == null || filter.test(element, rootInstance)) {
+                    collect(evaluate(segment, element, rootInstance, lenient), next, rootInstance, lenient, values);
+                }
+            }
+        } else {
+            throw notExpandable(value);
+        }
+    }
+
+    /**
+     * 逐个访问值，访问器返回false时停止，不创建中间集合
+     *
+     * @param instance 根对象
+     * @param visitor  访问器
+     */
+    void forEach(Object instance, Predicate<Object> visitor) {
+        visit(segments[0].evaluate(instance, instance), 1, instance, visitor);
+    }
+
+    /**
+     * 返回第一个值
+     *
+     * @param instance 根对象
+     * @return 第一个值，没有值时返回null
+     */
+    Object first(Object instance) {
+        final Object[] holder = new Object[1];
+        forEach(instance, value -> {
+            holder[0] = value;
+            return false;
+        });
+        return holder[0];
+    }
+
+    /**
+     * 值的数量
+     *
+     * @param instance 根对象
+     * @return 数量
+     */
+    int count(Object instance) {
+        final int[] counter = new int[1];
+        forEach(instance, value -> {
+            counter[0]++;
+            return true;
+        });
+        return counter[0];
+    }
+
+    /**
+     * 只有一个通配或过滤索引且位于末尾时，返回第一个满足条件的元素在容器中的下标
+     *
+     * @param instance 根对象
+     * @return 下标，没有满足条件的元素时返回-1
+     */
+    @SuppressWarnings("rawtypes")
+    int indexOf(Object instance) {
+        if (segments.length != 2 || segments[1].getExpression() != EmptyExpression.INSTANCE) {
+            throw new ExpressionException("The expression \"%s\" must end with its only filter or wildcard index", expression);
+        }
+        final Object value = segments[0].evaluate(instance, instance);
+        if (value == null) {
+            return -1;
+        }
+        final FilterPredicate filter = filters[1];
+        int index = 0;
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                if (filter == null || filter.test(element, instance)) {
+                    return index;
+                }
+                index++;
+            }
+        } else if (value.getClass().isArray()) {
+            for (int length = Array.getLength(value); index < length; index++) {
+                if (filter == null || filter.test(Primitives.getElement(value, index), instance)) {
+                    return index;
+                }
+            }
+        } else if (value instanceof Iterable) {
+            for (Object element : (Iterable) value) {
+                if (filter == null || filter.test(element, instance)) {
+                    return index;
+                }
+                index++;
+            }
+        } else {
+            throw notExpandable(value);
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private boolean visit(Object value, int level, Object rootInstance, Predicate<Object> visitor) {
+        if (level == segments.length) {
+            return visitor.test(value);
+        }
+        if (value == null) {
+            return true;
+        }
+        final CompiledExpression segment = segments[level];
+        final FilterPredicate filter = filters[level];
+        final int next = level + 1;
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                if ((filter == null || filter.test(element, rootInstance)) && !visit(segment.evaluate(element, rootInstance), next, rootInstance, visitor)) {
+                    return false;
+                }
+            }
+        } else if (value.getClass().isArray()) {
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                final Object element = Primitives.getElement(value, i);
+                if ((filter == null || filter.test(element, rootInstance)) && !visit(segment.evaluate(element, rootInstance), next, rootInstance, visitor)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Iterable) {
+            for (Object element : (Iterable) value) {
+                if ((filter == null || filter.test(element, rootInstance)) && !visit(segment.evaluate(element, rootInstance), next, rootInstance, visitor)) {
+                    return false;
+                }
+            }
+        } else {
+            throw notExpandable(value);
+        }
+        return true;
+    }
+
+    /**
+     * 惰性求值，不创建中间集合
+     *
+     * @param instance 根对象
+     * @return 值流
+     */
+    Stream<Object> stream(Object instance) {
+        Stream<Object> stream = Stream.of(segments[0].evaluate(instance, instance));
+        for (int i = 1; i < segments.length; i++) {
+            final CompiledExpression segment = segments[i];
+            final FilterPredicate filter = filters[i];
+            stream = stream.flatMap(this::elements);
+            if (filter != null) {
+                stream = stream.filter(element -> filter.test(element, instance));
+            }
+            if (segment.getExpression() != EmptyExpression.INSTANCE) {
+                stream = stream.map(element -> segment.evaluate(element, instance));
+            }
+        }
+        return stream;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Stream<?> elements(Object value) {
+        if (value == null) {
+            return Stream.empty();
+        } else if (value instanceof Collection) {
+            return ((Collection) value).stream();
+        } else if (value instanceof Object[]) {
+            return Arrays.stream((Object[]) value);
+        } else if (value instanceof int[]) {
+            return Arrays.stream((int[]) value).boxed();
+        } else if (value instanceof long[]) {
+            return Arrays.stream((long[]) value).boxed();
+        } else if (value instanceof double[]) {
+            return Arrays.stream((double[]) value).boxed();
+        } else if (value.getClass().isArray()) {
+            return IntStream.range(0, Array.getLength(value)).mapToObj(i -> Primitives.getElement(value, i));
+        } else if (value instanceof Iterable) {
+            return StreamSupport.stream(((Iterable) value).spliterator(), false);
+        }
+        throw notExpandable(value);
+    }
+
+    private ExpressionException notExpandable(Object value) {
+        return new ExpressionException("The instance \"%s\" type \"%s\" in expression \"%s\" is not array or Iterable", value.toString(), value.getClass(), expression);
+    }
+}
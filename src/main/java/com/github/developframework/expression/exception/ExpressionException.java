@@ -14,4 +14,14 @@ public class ExpressionException extends RuntimeException {
     public ExpressionException(String format, Object... objs) {
         super(String.format(format, objs));
     }
+
+    /**
+     * 构造方法
+     *
+     * @param message            异常信息
+     * @param writableStackTrace 是否填充栈轨迹，不填充时可被缓存复用
+     */
+    protected ExpressionException(String message, boolean writableStackTrace) {
+        super(message, null, writableStackTrace, writableStackTrace);
+    }
 }
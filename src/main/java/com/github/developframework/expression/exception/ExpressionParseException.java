@@ -6,7 +6,39 @@ package com.github.developframework.expression.exception;
  */
 public class ExpressionParseException extends ExpressionException{
 
+    /* 出错位置的字符偏移量，未知时为-1 */
+    private final int offset;
+
+    /* 出错的表达式字符串 */
+    private final String expressionValue;
+
     public ExpressionParseException(String format, Object... objs) {
         super(format, objs);
+        this.offset = -1;
+        this.expressionValue = null;
+    }
+
+    public ExpressionParseException(int offset, String expressionValue, String message) {
+        super("%s at offset %d in expression \"%s\"", message, offset, expressionValue);
+        this.offset = offset;
+        this.expressionValue = expressionValue;
+    }
+
+    /**
+     * 返回出错位置的字符偏移量
+     *
+     * @return 偏移量，未知时为-1
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * 返回出错的表达式字符串
+     *
+     * @return 表达式字符串，未知时为null
+     */
+    public String getExpressionValue() {
+        return expressionValue;
     }
 }
@@ -0,0 +1,29 @@
+package com.github.developframework.expression.exception;
+
+/**
+ * 属性不存在异常
+ * 不填充栈轨迹，每个（类型，属性名称）只创建一次并随属性访问器缓存复用
+ * @author qiushui
+ */
+public class NoSuchPropertyException extends ExpressionException {
+
+    /* 类型 */
+    private final Class<?> ownerClass;
+
+    /* 属性名称 */
+    private final String propertyName;
+
+    public NoSuchPropertyException(Class<?> ownerClass, String propertyName) {
+        super(String.format("No such field \"%s\" in class \"%s\"", propertyName, ownerClass.getName()), false);
+        this.ownerClass = ownerClass;
+        this.propertyName = propertyName;
+    }
+
+    public Class<?> getOwnerClass() {
+        return ownerClass;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+}
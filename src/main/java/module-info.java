@@ -4,7 +4,11 @@
 module expression {
     requires lombok;
     requires org.apache.commons.lang3;
+    requires java.management;
 
     exports com.github.developframework.expression.exception;
     exports com.github.developframework.expression;
+
+    uses com.github.developframework.expression.PropertyAccessorTable;
+    uses com.github.developframework.expression.PropertyResolver;
 }
\ No newline at end of file
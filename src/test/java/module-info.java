@@ -4,8 +4,12 @@ module expression.test {
     requires org.apache.commons.lang3;
     requires lombok;
     requires junit;
+    requires jdk.management;
+    requires java.compiler;
 
     exports test;
 
     opens test to org.apache.commons.lang3;
+
+    provides com.github.developframework.expression.PropertyAccessorTable with test.JunitTest.PointAccessors;
 }
\ No newline at end of file
@@ -1,15 +1,56 @@
 package test;
 
 import com.github.developframework.expression.ArrayExpression;
+import com.github.developframework.expression.BoundExpression;
+import com.github.developframework.expression.CompiledExpression;
+import com.github.developframework.expression.DefaultExpressionMetrics;
+import com.github.developframework.expression.EmptyExpression;
 import com.github.developframework.expression.Expression;
+import com.github.developframework.expression.ExpressionCache;
+import com.github.developframework.expression.ExpressionMetrics;
 import com.github.developframework.expression.ExpressionUtils;
+import com.github.developframework.expression.FilterPredicate;
+import com.github.developframework.expression.JsonProjection;
+import com.github.developframework.expression.MissPolicy;
 import com.github.developframework.expression.MethodExpression;
+import com.github.developframework.expression.ObjectExpression;
+import com.github.developframework.expression.Projection;
+import com.github.developframework.expression.PropertyAccessorTable;
+import com.github.developframework.expression.PropertyResolver;
+import com.github.developframework.expression.SetIndexStrategy;
+import com.github.developframework.expression.exception.ExpressionException;
+import com.github.developframework.expression.exception.ExpressionParseException;
+import com.github.developframework.expression.exception.NoSuchPropertyException;
+import lombok.Data;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author qiushui on 2022-07-22.
@@ -68,4 +109,977 @@ public class JunitTest {
         Assert.assertEquals(say, "Hi");
     }
 
+    @Test
+    public void testCache() {
+        ExpressionCache cache = new ExpressionCache(2);
+        Expression expression = cache.get("user.name");
+        Assert.assertSame(expression, cache.get("user.name"));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        cache.get("user.age");
+        cache.get("users[0].name");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertSame(EmptyExpression.INSTANCE, cache.get(null));
+    }
+
+    @Test
+    public void testImmutable() {
+        ArrayExpression expression = (ArrayExpression) Expression.parse("array[0][1]");
+        expression.getIndexArray()[0] = 5;
+        Assert.assertArrayEquals(new int[]{0, 1}, expression.getIndexArray());
+    }
+
+    @Test
+    public void testAccessor() {
+        User user = new User("a", 20);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(20, ExpressionUtils.getValue(user, "age"));
+        }
+        Assert.assertEquals("x", ExpressionUtils.getValue(new Member("x", true), "nickname"));
+        Assert.assertEquals(true, ExpressionUtils.getValue(new Member("x", true), "enabled"));
+    }
+
+    @Test
+    public void testCompile() {
+        CompiledExpression compiled = ExpressionUtils.compile("data.users[0].name");
+        Assert.assertSame(compiled, ExpressionUtils.compile("data.users[0].name"));
+        List<User> users = List.of(new User("a", 20));
+        Map<String, ?> root = Map.of("data", Map.of("users", users));
+        Assert.assertEquals("a", compiled.getValue(root));
+        Assert.assertNull(compiled.getValue(Map.of("other", 1)));
+        Assert.assertNull(compiled.getValue(null));
+        Assert.assertEquals("Hi", ExpressionUtils.compile("data.users[0].say()").getValue(root, String.class));
+        // 多态接收者
+        CompiledExpression name = ExpressionUtils.compile("name");
+        Assert.assertEquals("a", name.getValue(users.get(0)));
+        Assert.assertNull(name.getValue(Map.of()));
+        Assert.assertEquals("a", name.getValue(users.get(0)));
+    }
+
+    @Test
+    public void testTiered() {
+        // 规范化节点在各处共享编译状态，使用本测试独有的表达式
+        Expression expression = Expression.parse("tiered.age");
+        Map<String, User> root = Map.of("tiered", new User("a", 20));
+        ExpressionUtils.setCompileThreshold(3);
+        try {
+            for (int i = 0; i < 2; i++) {
+                Assert.assertEquals(20, ExpressionUtils.getValue(root, expression));
+            }
+            Assert.assertFalse(expression.isCompiled());
+            Assert.assertEquals(20, ExpressionUtils.getValue(root, expression));
+            Assert.assertTrue(expression.isCompiled());
+            Assert.assertEquals(20, ExpressionUtils.getValue(Map.of("tiered", Map.of("age", 20)), expression));
+        } finally {
+            ExpressionUtils.setCompileThreshold(0);
+        }
+    }
+
+    @Test
+    public void testPrimitive() {
+        Map<String, Object> root = Map.of(
+                "user", new User("a", 20),
+                "ints", new int[]{1, 2},
+                "matrix", new double[][]{{1.5}},
+                "flags", new boolean[]{true},
+                "chars", new char[]{'c'},
+                "count", 3L
+        );
+        Assert.assertEquals(2, ExpressionUtils.getValue(root, "ints[1]"));
+        Assert.assertEquals('c', ExpressionUtils.getValue(root, "chars[0]"));
+        Assert.assertEquals(20, ExpressionUtils.getInt(root, "user.age"));
+        Assert.assertEquals(20L, ExpressionUtils.getLong(root, "user.age"));
+        Assert.assertEquals(2, ExpressionUtils.getInt(root, "ints[1]"));
+        Assert.assertEquals(1.5d, ExpressionUtils.getDouble(root, "matrix[0][0]"), 0d);
+        Assert.assertTrue(ExpressionUtils.getBoolean(root, "flags[0]"));
+        Assert.assertEquals(3, ExpressionUtils.getInt(root, "count"));
+        Assert.assertTrue(ExpressionUtils.getBoolean(new Member("x", true), "enabled"));
+
+        CompiledExpression age = ExpressionUtils.compile("user.age");
+        Assert.assertEquals(20, age.getInt(root));
+        Assert.assertEquals(20d, age.getDouble(root), 0d);
+        Assert.assertEquals(1.5d, ExpressionUtils.compile("matrix[0][0]").getDouble(root), 0d);
+        Assert.assertEquals(99L, ExpressionUtils.compile("chars[0]").getLong(root));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getInt(root, "missing"));
+    }
+
+    @Test
+    public void testCollectionIndex() {
+        Map<String, Object> root = Map.of(
+                "sorted", new TreeSet<>(List.of("c", "a", "b")),
+                "linked", new LinkedHashSet<>(List.of("c", "a", "b")),
+                "deque", new ArrayDeque<>(List.of(1, 2, 3, 4, 5)),
+                "linkedList", new LinkedList<>(List.of(1, 2, 3)),
+                "hash", new HashSet<>(List.of(1, 2, 3))
+        );
+        Assert.assertEquals("b", ExpressionUtils.getValue(root, "sorted[1]"));
+        Assert.assertEquals("a", ExpressionUtils.getValue(root, "linked[1]"));
+        Assert.assertEquals(2, ExpressionUtils.getValue(root, "deque[1]"));
+        Assert.assertEquals(4, ExpressionUtils.getValue(root, "deque[3]"));
+        Assert.assertEquals(3, ExpressionUtils.getValue(root, "linkedList[2]"));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> ExpressionUtils.getValue(root, "deque[5]"));
+        ExpressionUtils.setSetIndexStrategy(SetIndexStrategy.HASH_CODE_SNAPSHOT);
+        try {
+            Assert.assertEquals(1, ExpressionUtils.getValue(root, "hash[0]"));
+            Assert.assertEquals(3, ExpressionUtils.getValue(root, "hash[2]"));
+        } finally {
+            ExpressionUtils.setSetIndexStrategy(SetIndexStrategy.ITERATION_ORDER);
+        }
+    }
+
+    @Test
+    public void testAllocationFree() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+        Map<String, Object> root = Map.of(
+                "data", Map.of("users", List.of(new User("a", 20))),
+                "members", new Member[]{new Member("x", true)}
+        );
+        Expression[] expressions = {
+                Expression.parse("data.users[0].name"),
+                Expression.parse("members[0].nickname")
+        };
+        final int iterations = 100_000;
+        for (int i = 0; i < iterations; i++) {
+            evaluate(root, expressions);
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            evaluate(root, expressions);
+        }
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        Assert.assertTrue("allocated " + allocated + " bytes", allocated < iterations);
+    }
+
+    private static void evaluate(Object root, Expression[] expressions) {
+        for (Expression expression : expressions) {
+            if (ExpressionUtils.getValue(root, expression) == null) {
+                throw new AssertionError();
+            }
+        }
+        if (ExpressionUtils.getValue(root, "data.users[0].name") == null) {
+            throw new AssertionError();
+        }
+    }
+
+    @Test
+    public void testBulk() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            users.add(new User("u" + i, i));
+        }
+        Expression expression = Expression.parse("name");
+        List<Object> names = ExpressionUtils.getValues(users, expression);
+        Assert.assertEquals(5000, names.size());
+        Assert.assertEquals("u42", names.get(42));
+        Assert.assertEquals(names, ExpressionUtils.getValuesParallel(users, expression));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Assert.assertEquals(names, ExpressionUtils.getValues(users, expression, executor));
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(names, ExpressionUtils.map(users.parallelStream(), expression).collect(Collectors.toList()));
+        Assert.assertEquals(names, ExpressionUtils.stream(users.spliterator(), expression, true).collect(Collectors.toList()));
+        Assert.assertEquals(List.of("a"), ExpressionUtils.getValues(Set.of(Map.of("name", "a")), "name"));
+    }
+
+    @Test
+    public void testProjection() {
+        Map<String, Object> root = Map.of(
+                "data", Map.of("users", List.of(new User("a", 20), new User("b", 30))),
+                "flag", true
+        );
+        Projection projection = Projection.of("data.users[0].name", "data.users[1].age", "data.users[0].say()", "flag", "data.missing.name", "");
+        Object[] values = projection.getValues(root);
+        Assert.assertArrayEquals(new Object[]{"a", 30, "Hi", true, null, root}, values);
+        Map<String, Object> valueMap = projection.getValueMap(root);
+        Assert.assertEquals("a", valueMap.get("data.users[0].name"));
+        Assert.assertEquals(30, valueMap.get("data.users[1].age"));
+        Assert.assertEquals(6, projection.size());
+        // 方法每次出现都单独调用，属性前缀仍然共享
+        Tally tally = new Tally();
+        Projection calls = Projection.of("tally.next()", "tally.next()", "tally.next().toString()", "tally.value", "tally.value");
+        Assert.assertArrayEquals(new Object[]{1, 2, "3", 7, 7}, calls.getValues(Map.of("tally", tally)));
+        Assert.assertEquals(1, tally.reads);
+    }
+
+    @Test
+    public void testMethodInlineCache() {
+        Expression expression = Expression.parse("member.greet(prefix,times)");
+        Map<String, Object> intRoot = Map.of("member", new Member("x", true), "prefix", "hi", "times", 2);
+        Map<String, Object> longRoot = Map.of("member", new Member("y", true), "prefix", "ho", "times", 3L);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("hi,hi,x", ExpressionUtils.getValue(intRoot, expression));
+            Assert.assertEquals("ho,ho,ho,y", ExpressionUtils.getValue(longRoot, expression));
+            Assert.assertEquals("ho,ho,ho,y", expression.compile().getValue(longRoot));
+        }
+        // 超过多态深度后走全局查找表
+        Object[] receivers = {new Member("m", true), new User("u", 1), List.of(1), Map.of("k", 1), "s", 1L};
+        for (int i = 0; i < 2; i++) {
+            for (Object receiver : receivers) {
+                Assert.assertNotNull(ExpressionUtils.getValue(Map.of("r", receiver), "r.toString()"));
+            }
+        }
+        // 全局查找表按参数运行时类型区分入口
+        Expression indexOf = Expression.parse("r.indexOf(x)");
+        Object[][] cases = {{"ab", "b"}, {new StringBuilder("ab"), "b"}, {new StringBuffer("ab"), "b"}, {"ab", (int) 'b'}, {"ab", 'b'}};
+        for (int i = 0; i < 2; i++) {
+            for (Object[] c : cases) {
+                Assert.assertEquals(1, ExpressionUtils.getValue(Map.of("r", c[0], "x", c[1]), indexOf));
+            }
+        }
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getValue(intRoot, "member.missing()"));
+        // Error不包装
+        Assert.assertThrows(StackOverflowError.class, () -> ExpressionUtils.getValue(Map.of("tally", new Tally()), "tally.overflow()"));
+        Assert.assertThrows(StackOverflowError.class, () -> ExpressionUtils.getValue(Map.of("tally", new Tally()), "tally.depth"));
+        Assert.assertThrows(StackOverflowError.class, () -> ExpressionUtils.compile("tally.depth").getValue(Map.of("tally", new Tally())));
+    }
+
+    @Test
+    public void testParser() {
+        Assert.assertTrue(MethodExpression.isMethodExpression("format(user.name, prefix(a[0]))"));
+        Expression expression = Expression.parse("member.greet( data.prefix , data.times )");
+        Assert.assertEquals("member.greet(data.prefix, data.times)", expression.toString());
+        Assert.assertEquals(expression, Expression.parse(expression.toString()));
+        Map<String, Object> root = Map.of("member", new Member("x", true), "data", Map.of("prefix", "hi", "times", 2));
+        Assert.assertEquals("hi,hi,x", ExpressionUtils.getValue(root, expression));
+        Assert.assertEquals("hi,hi,x", ExpressionUtils.getValue(root, "member.greet(data.prefix, data.prefix.length())"));
+        Assert.assertEquals("hi,hi,x", expression.compile().getValue(root));
+        // 语法错误报告字符偏移量
+        Map<String, Integer> illegals = Map.of("a..b", 2, "a[1", 3, "a[x]", 2, "a(b", 3, "a[0]b", 4, "a.(b)", 2);
+        illegals.forEach((expressionValue, offset) -> {
+            ExpressionParseException e = Assert.assertThrows(ExpressionParseException.class, () -> Expression.parse(expressionValue));
+            Assert.assertEquals(expressionValue, offset.intValue(), e.getOffset());
+        });
+    }
+
+    @Test
+    public void testSetValue() {
+        Order order = new Order();
+        order.setScores(new long[2]);
+        order.setTags(new ArrayList<>(List.of("a")));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(order, "customer.name", "x"));
+        ExpressionUtils.setValue(order, Expression.parse("customer.name"), "Tom", true);
+        ExpressionUtils.setValue(order, "customer.age", 20L);
+        ExpressionUtils.setValue(order, "scores[1]", 7);
+        ExpressionUtils.setValue(order, "tags[0]", "b");
+        Assert.assertEquals("Tom", order.getCustomer().getName());
+        Assert.assertEquals(20, order.getCustomer().getAge());
+        Assert.assertEquals(7L, order.getScores()[1]);
+        Assert.assertEquals(List.of("b"), order.getTags());
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(order, "id", "x"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(order, "tags.size()", 1));
+        // 自动创建Map/List中间节点
+        Map<String, Object> root = new HashMap<>();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("user.name", "Peter");
+        values.put("user.mails[1]", "peter@qq.com");
+        values.put("matrix[1][0]", 3);
+        values.put("order.customer.age", 30);
+        values.put("order.names[1]", "n");
+        ExpressionUtils.setValues(root, values, true);
+        Assert.assertEquals("Peter", ExpressionUtils.getValue(root, "user.name"));
+        Assert.assertEquals(Arrays.asList(null, "peter@qq.com"), ExpressionUtils.getValue(root, "user.mails"));
+        Assert.assertEquals(3, ExpressionUtils.getValue(root, "matrix[1][0]"));
+        Assert.assertEquals(30, ExpressionUtils.getInt(root, "order.customer.age"));
+        Order created = new Order();
+        ExpressionUtils.compile("names[1]").setValue(created, "n", true);
+        Assert.assertArrayEquals(new String[]{null, "n"}, created.getNames());
+    }
+
+    @Test
+    public void testMissPolicy() {
+        Map<String, Object> root = Map.of(
+                "user", new User("a", 20),
+                "users", List.of(new User("a", 20), new User("b", 30)),
+                "scores", new int[]{1},
+                "groups", List.of(List.of(1, 2), List.of(3))
+        );
+        NoSuchPropertyException e1 = Assert.assertThrows(NoSuchPropertyException.class, () -> ExpressionUtils.getValue(root, "user.email"));
+        NoSuchPropertyException e2 = Assert.assertThrows(NoSuchPropertyException.class, () -> ExpressionUtils.compile("user.email").getValue(root));
+        // 负缓存：同一个属性复用同一个无栈轨迹的异常
+        Assert.assertSame(e1, e2);
+        Assert.assertEquals(0, e1.getStackTrace().length);
+        Assert.assertEquals("email", e1.getPropertyName());
+        Assert.assertEquals(Optional.empty(), ExpressionUtils.tryGetValue(root, "user.email.length()"));
+        Assert.assertEquals(Optional.of("a"), ExpressionUtils.tryGetValue(root, "user.name"));
+        Assert.assertEquals("none", ExpressionUtils.getValueOrDefault(root, "user.email", "none"));
+        Assert.assertEquals(20, (int) ExpressionUtils.getValueOrDefault(root, "user.age", 0));
+        // 索引越界
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> ExpressionUtils.getValue(root, "users[5]"));
+        Assert.assertEquals(Optional.empty(), ExpressionUtils.tryGetValue(root, "users[5]"));
+        Assert.assertEquals(Optional.empty(), ExpressionUtils.tryGetValue(root, "users[-3].name"));
+        Assert.assertEquals(Optional.empty(), ExpressionUtils.tryGetValue(root, "scores[1]"));
+        Assert.assertEquals("none", ExpressionUtils.getValueOrDefault(root, "users[2].name", "none"));
+        Assert.assertEquals(Optional.of("b"), ExpressionUtils.tryGetValue(root, "users[-1].name"));
+        // 通配展开的各段同样宽松求值
+        Assert.assertThrows(NoSuchPropertyException.class, () -> ExpressionUtils.getValue(root, "users[*].email"));
+        Assert.assertEquals(Optional.of(Arrays.asList(null, null)), ExpressionUtils.tryGetValue(root, "users[*].email"));
+        Assert.assertEquals(Optional.of(Arrays.asList(2, null)), ExpressionUtils.tryGetValue(root, "groups[*][1]"));
+        Assert.assertEquals(Arrays.asList(20, 30), ExpressionUtils.getValueOrDefault(root, "users[*].age", List.of()));
+        ExpressionUtils.setMissPolicy(MissPolicy.RETURN_NULL);
+        try {
+            Assert.assertNull(ExpressionUtils.getValue(root, "user.email"));
+            Assert.assertNull(ExpressionUtils.compile("user.email").getValue(root));
+            Assert.assertThrows(NoSuchPropertyException.class, () -> ExpressionUtils.setValue(root, "user.email", "x"));
+            // 配置的默认值，Map中不存在的键仍然为null
+            ExpressionUtils.setMissDefaultValue("none");
+            ExpressionUtils.setMissPolicy(MissPolicy.RETURN_DEFAULT);
+            Assert.assertEquals("none", ExpressionUtils.getValue(root, "user.email"));
+            Assert.assertEquals("none", ExpressionUtils.compile("user.email").getValue(root));
+            Assert.assertEquals(4, ExpressionUtils.getValue(root, "user.email.length()"));
+            Assert.assertEquals("a", ExpressionUtils.getValue(root, "user.name"));
+            Assert.assertNull(ExpressionUtils.getValue(root, "missing"));
+        } finally {
+            ExpressionUtils.setMissPolicy(MissPolicy.THROW);
+            ExpressionUtils.setMissDefaultValue(null);
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        DefaultExpressionMetrics metrics = new DefaultExpressionMetrics(1, 16);
+        metrics.registerMBean();
+        ExpressionUtils.setMetrics(metrics);
+        try {
+            Map<String, Object> root = Map.of("user", new User("a", 20), "member", new Member("m", true));
+            Expression expression = Expression.parse("user.name.length()");
+            for (int i = 0; i < 10; i++) {
+                ExpressionUtils.getValue(root, expression);
+                expression.compile().getValue(root);
+            }
+            Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getValue(root, Expression.parse("member.missing")));
+            Assert.assertEquals(2, metrics.getParseCount());
+            Assert.assertEquals(20, metrics.getEvaluationSampleCount());
+            Assert.assertEquals(1, metrics.getExceptionCount());
+            Assert.assertTrue(metrics.getLatencyPercentile("user.name.length()", 99) > 0);
+            Assert.assertEquals(1, metrics.getSlowestExpressions(10).length);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DefaultExpressionMetrics.OBJECT_NAME);
+            Assert.assertEquals(1L, server.getAttribute(objectName, "ExceptionCount"));
+            server.invoke(objectName, "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0, metrics.getEvaluationSampleCount());
+        } finally {
+            ExpressionUtils.setMetrics(ExpressionMetrics.NOOP);
+            metrics.unregisterMBean();
+        }
+    }
+
+    @Test
+    public void testWildcard() {
+        List<User> users = List.of(new User("a", 1), new User("b", 2), new User("c", 3));
+        Map<String, Object> root = Map.of(
+                "users", users,
+                "groups", new Object[]{users.subList(0, 1), users.subList(1, 3)},
+                "matrix", new int[][]{{1, 2}, {3}}
+        );
+        Expression expression = Expression.parse("users[*].name");
+        Assert.assertTrue(expression.hasWildcard());
+        Assert.assertEquals("users[*].name", expression.toString());
+        Assert.assertEquals(List.of("a", "b", "c"), ExpressionUtils.getValue(root, expression));
+        Assert.assertEquals(List.of("a", "b", "c"), expression.compile().getValue(root));
+        Assert.assertEquals(List.of("a", "b", "c"), ExpressionUtils.stream(root, expression).collect(Collectors.toList()));
+        Assert.assertEquals(List.of(1, 2, 3), ExpressionUtils.getValue(root, "matrix[*][*]"));
+        Assert.assertEquals(List.of("b", "c"), ExpressionUtils.getValue(root, "groups[1][*].name"));
+        Assert.assertEquals(List.of(1, 1, 1), ExpressionUtils.getValue(root, "groups[*][*].name.length()"));
+        // 惰性：只展开需要的元素
+        Iterator<Object> iterator = ExpressionUtils.iterator(root, Expression.parse("users[*].age"));
+        Assert.assertEquals(1, iterator.next());
+        Assert.assertEquals(List.of("a"), ExpressionUtils.stream(root, "users[*].name").limit(1).collect(Collectors.toList()));
+        Assert.assertEquals(List.of("a"), ExpressionUtils.stream(root, "users[0].name").collect(Collectors.toList()));
+        Assert.assertEquals(List.of(List.of("a", "b", "c"), "a"), Arrays.asList(Projection.of("users[*].name", "users[0].name").getValues(root)));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(root, "users[*].name", "x"));
+        // 通配之后以索引结尾的路径
+        Map<String, Object> tagged = Map.of("users", List.of(Map.of("tags", List.of("x", "y")), Map.of("tags", List.of("z"))));
+        Expression first = Expression.parse("users[*].tags[0]");
+        Assert.assertTrue(first.hasWildcard());
+        Assert.assertEquals(List.of("x", "z"), ExpressionUtils.getValue(tagged, first));
+        Assert.assertEquals(List.of("x", "z"), first.compile().getValue(tagged));
+        Assert.assertEquals(List.of("x", "z"), ExpressionUtils.stream(tagged, first).collect(Collectors.toList()));
+        Assert.assertEquals(List.of(List.of("x", "z")), Arrays.asList(Projection.of("users[*].tags[0]").getValues(tagged)));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(tagged, "users[*].tags[0]", "w"));
+    }
+
+    @Test
+    public void testIntern() {
+        Expression expression = Expression.parse("a.b[0].c");
+        Assert.assertSame(expression, Expression.parse("a.b[0].c"));
+        Assert.assertSame(Expression.parse("a.b[0]"), expression.getParentExpression());
+        Assert.assertEquals(Expression.parse("a.b[0]").hashCode(), expression.getParentExpression().hashCode());
+        Assert.assertNotEquals(Expression.parse("a.b[1].c"), expression);
+        Assert.assertSame(expression, Expression.concat(Expression.parse("a"), "b[0].c"));
+        Assert.assertSame(expression, Expression.copy(expression));
+        // 方法节点在连接后保留，原父表达式不被修改
+        Expression parent = Expression.parse("x");
+        Expression method = Expression.concat(parent, "y.say(a.b, c)");
+        Assert.assertTrue(method instanceof MethodExpression);
+        Assert.assertEquals("x.y.say(a.b, c)", method.toString());
+        Assert.assertSame(Expression.parse("x.y.say(a.b, c)"), method);
+        Assert.assertSame(parent, method.getParentExpression().getParentExpression());
+        Assert.assertFalse(parent.hasParentExpression());
+        Assert.assertSame(Expression.parse("a.b[0]"), ArrayExpression.fromObject((ObjectExpression) Expression.parse("a.b"), new int[]{0}));
+    }
+
+    @Test
+    public void testAccessorTable() {
+        // PointAccessors通过module-info的provides登记，由ServiceLoader发现
+        Point point = new Point();
+        point.setY(2);
+        ExpressionUtils.setValue(point, "x", 1);
+        Assert.assertEquals(1, point.getX());
+        Assert.assertEquals(3, ExpressionUtils.getValue(point, "sum"));
+        Assert.assertEquals(3, ExpressionUtils.getInt(point, "sum"));
+        Assert.assertEquals(2, ExpressionUtils.getValue(point, "y"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(point, "sum", 5));
+        // 手动注册
+        Customer customer = new Customer();
+        customer.setName("ab");
+        ExpressionUtils.registerAccessorTable(new PropertyAccessorTable() {
+            @Override
+            public Class<?> getType() {
+                return Customer.class;
+            }
+
+            @Override
+            public void registerAccessors(Registry registry) {
+                registry.register("upperName", String.class, o -> ((Customer) o).getName().toUpperCase(), (o, v) -> ((Customer) o).setName(v.toLowerCase()));
+            }
+        });
+        try {
+            Assert.assertEquals("AB", ExpressionUtils.getValue(customer, "upperName"));
+            ExpressionUtils.setValue(customer, "upperName", "XY");
+            Assert.assertEquals("xy", customer.getName());
+        } finally {
+            Assert.assertTrue(ExpressionUtils.unregisterAccessorTable(Customer.class));
+        }
+        // 注销后重新反射解析，upperName不再存在
+        Assert.assertFalse(ExpressionUtils.unregisterAccessorTable(Customer.class));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getValue(customer, "upperName"));
+        Assert.assertEquals("xy", ExpressionUtils.getValue(customer, "name"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.registerAccessorTable(null));
+    }
+
+    @Test
+    public void testPropertyResolver() {
+        // 只有getter方法没有字段的计算属性
+        Customer customer = new Customer();
+        customer.setName("a");
+        customer.setAge(20);
+        Assert.assertEquals("a(20)", ExpressionUtils.getValue(customer, "label"));
+        Assert.assertEquals("a(20)", ExpressionUtils.compile("label").getValue(customer));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(customer, "label", "x"));
+        // 树模型
+        final PropertyResolver resolver = new PropertyResolver() {
+            @Override
+            public boolean supports(Class<?> type) {
+                return TreeNode.class.isAssignableFrom(type);
+            }
+
+            @Override
+            public Property resolve(Class<?> type, String propertyName) {
+                return Property.of(Object.class, node -> ((TreeNode) node).get(propertyName), (node, value) -> ((TreeNode) node).put(propertyName, value));
+            }
+        };
+        ExpressionUtils.addPropertyResolver(resolver);
+        TreeNode root = new TreeNode().put("user", new TreeNode().put("name", "b").put("tags", List.of("x", "y")));
+        try {
+            Assert.assertEquals("b", ExpressionUtils.getValue(root, "user.name"));
+            Assert.assertEquals("y", ExpressionUtils.getValue(root, "user.tags[1]"));
+            Assert.assertNull(ExpressionUtils.getValue(root, "user.missing"));
+            ExpressionUtils.setValue(root, "user.name", "c");
+            Assert.assertEquals("c", ExpressionUtils.compile("user.name").getValue(root));
+        } finally {
+            Assert.assertTrue(ExpressionUtils.removePropertyResolver(resolver));
+        }
+        // 移除后TreeNode重新选择JavaBean解析器，user不是它的属性
+        Assert.assertFalse(ExpressionUtils.removePropertyResolver(resolver));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getValue(root, "user"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.addPropertyResolver(null));
+    }
+
+    @Test
+    public void testRecordResolver() throws Exception {
+        // 编译目标版本不支持record，在JDK 16+上运行时编译一个record
+        Assume.assumeTrue(Runtime.version().feature() >= 16);
+        final Path directory = compileClass("sample/Range.java", "package sample;\n"
+                + "\n"
+                + "public record Range(int from, int to) {\n"
+                + "    public int getLength() { return to - from; }\n"
+                + "}\n");
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            final Object range = loader.loadClass("sample.Range").getConstructor(int.class, int.class).newInstance(2, 5);
+            Assert.assertEquals(2, ExpressionUtils.getValue(range, "from"));
+            Assert.assertEquals(5, ExpressionUtils.compile("to").getValue(range));
+            Assert.assertEquals(5, ExpressionUtils.getInt(range, "to"));
+            // 不是组件的计算属性交给JavaBean解析器
+            Assert.assertEquals(3, ExpressionUtils.getValue(range, "length"));
+            // 组件不可写
+            Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(range, "from", 1));
+            Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.getValue(range, "missing"));
+        }
+    }
+
+    @Test
+    public void testClearCompiledState() throws Exception {
+        final Path directory = compileClass("sample/Plugin.java", "package sample;\n"
+                + "\n"
+                + "public class Plugin {\n"
+                + "    private String name = \"p\";\n"
+                + "    public String getName() { return name; }\n"
+                + "    public void setName(String name) { this.name = name; }\n"
+                + "    public String getLabel() { return \"[\" + name + \"]\"; }\n"
+                + "    public String greet(String other) { return name + \"-\" + other; }\n"
+                + "}\n");
+        final WeakReference<ClassLoader> loader = evaluatePlugin(directory);
+        Assert.assertTrue(Expression.parse("label").isCompiled());
+        // 编译状态强引用插件类型，丢弃后类加载器可以被回收
+        ExpressionUtils.clearCompiledState();
+        Assert.assertFalse(Expression.parse("label").isCompiled());
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull(loader.get());
+        // 之后的求值重新链接
+        Assert.assertEquals("[a]", ExpressionUtils.compile("label").getValue(Map.of("label", "[a]")));
+    }
+
+    private static WeakReference<ClassLoader> evaluatePlugin(Path directory) throws Exception {
+        final URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, JunitTest.class.getClassLoader());
+        final Object plugin = loader.loadClass("sample.Plugin").getConstructor().newInstance();
+        ExpressionUtils.setValue(plugin, "name", "q");
+        Assert.assertEquals("q", ExpressionUtils.getValue(plugin, "name"));
+        Assert.assertEquals("[q]", ExpressionUtils.compile("label").getValue(plugin));
+        Assert.assertEquals("q-q", ExpressionUtils.getValue(plugin, "greet(name)"));
+        Assert.assertEquals("q-q", ExpressionUtils.compile("greet(name)").getValue(plugin));
+        loader.close();
+        return new WeakReference<>(loader);
+    }
+
+    /**
+     * 以系统编译器编译单个源文件，没有编译器时跳过测试
+     *
+     * @param path   相对路径
+     * @param source 源码
+     * @return 输出目录
+     */
+    private static Path compileClass(String path, String source) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        final Path directory = Files.createTempDirectory("sample");
+        final Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        Assert.assertEquals(0, compiler.run(null, null, null, "-d", directory.toString(), file.toString()));
+        return directory;
+    }
+
+    @Test
+    public void testBind() throws NoSuchFieldException {
+        // 以字段的泛型类型 Map<String, List<User>> 作为根类型
+        Type rootType = Holder.class.getDeclaredField("teams").getGenericType();
+        Map<String, List<User>> teams = Map.of("team", List.of(new User("a", 20)));
+        BoundExpression bound = ExpressionUtils.bind(rootType, "team[0].name");
+        Assert.assertEquals(String.class, bound.getValueType());
+        Assert.assertEquals("a", bound.getValue(teams));
+        Assert.assertEquals(20, ExpressionUtils.bind(rootType, "team[0].age").getInt(teams));
+        Assert.assertEquals(String.class, ExpressionUtils.bind(rootType, "team[0].say()").getValueType());
+        Assert.assertEquals(List.class, ExpressionUtils.bind(rootType, "team[*].name").getValueClass());
+        // 绑定时检查
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.bind(rootType, "team[0].missing"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.bind(rootType, "team[0].name[0]"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.bind(rootType, "team[0].hello()"));
+        Assert.assertThrows(ExpressionException.class, () -> bound.getValue(new User("a", 20)));
+        // 非public方法运行时不可调用，绑定时同样拒绝
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.bind(rootType, "team[0].whisper()"));
+        // 目标类型与静态类型兼容时按运行时的值检查
+        Assert.assertEquals("a", bound.getValue(teams, String.class));
+        Assert.assertEquals("a", bound.getValue(teams, CharSequence.class));
+        Assert.assertEquals(Integer.valueOf(20), ExpressionUtils.bind(rootType, "team[0].age").getValue(teams, Integer.class));
+        Assert.assertEquals(Integer.valueOf(20), ExpressionUtils.bind(rootType, "team[0].age").getValue(teams, int.class));
+        Assert.assertThrows(ExpressionException.class, () -> bound.getValue(teams, Integer.class));
+        Assert.assertEquals("a", ExpressionUtils.bind(Object.class, "name").getValue(new User("a", 20), String.class));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.bind(Object.class, "name").getValue(new User("a", 20), Integer.class));
+        // final类型直接使用访问器，类型变量按实际类型参数替换
+        Holder holder = new Holder();
+        holder.setBox(new Box<>());
+        holder.getBox().setValue(new User("b", 30));
+        BoundExpression boxBound = ExpressionUtils.bind(Holder.class, "box.value.name");
+        Assert.assertEquals(String.class, boxBound.getValueType());
+        Assert.assertEquals("b", boxBound.getValue(holder));
+        Assert.assertEquals(30, ExpressionUtils.bind(Holder.class, "box.value.age").getInt(holder));
+        Assert.assertNull(boxBound.getValue(new Holder()));
+    }
+
+    @Test
+    public void testJsonProjection() throws IOException {
+        String json = "{\"skip\": {\"deep\": [1, {\"x\": \"}]\"}]}, \"data\": {\"users\": [{\"name\": \"a\", \"age\": 20}, "
+                + "{\"name\": \"b\\u0021\", \"tags\": [\"x\", true, null, 1.5]}]}, \"na\\u006De\": \"escaped\", \"big\": 12345678901}";
+        JsonProjection projection = JsonProjection.of("data.users[0].name", "data.users[1].name", "data.users[1].tags", "data.users[0].age", "data.users[1].tags[1]", "name", "big", "missing.x");
+        Object[] values = projection.getValues(json.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("a", values[0]);
+        Assert.assertEquals("b!", values[1]);
+        Assert.assertEquals(Arrays.asList("x", true, null, 1.5), values[2]);
+        Assert.assertEquals(20, values[3]);
+        Assert.assertEquals(true, values[4]);
+        Assert.assertEquals("escaped", values[5]);
+        Assert.assertEquals(12345678901L, values[6]);
+        Assert.assertNull(values[7]);
+        // 所有路径取到值后停止扫描，后面不完整的内容不影响结果
+        byte[] truncated = "{\"a\": {\"b\": [0, 1]}, \"c\": [".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(Map.of("a.b[1]", 1), JsonProjection.of("a.b[1]").getValueMap(truncated));
+        Assert.assertThrows(ExpressionException.class, () -> JsonProjection.of("c.d").getValues(truncated));
+        // 直接缓冲区与内存映射文件
+        ByteBuffer buffer = ByteBuffer.allocateDirect(json.length());
+        buffer.put(json.getBytes(StandardCharsets.UTF_8)).flip();
+        Assert.assertEquals("a", JsonProjection.of("data.users[0].name").getValues(buffer)[0]);
+        Path file = Files.createTempFile("expression", ".json");
+        try {
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals("escaped", JsonProjection.of("name").getValues(file)[0]);
+        } finally {
+            Files.delete(file);
+        }
+        Assert.assertThrows(ExpressionException.class, () -> JsonProjection.of("users[*].name"));
+        Assert.assertThrows(ExpressionException.class, () -> JsonProjection.of("say()"));
+    }
+
+    @Test
+    public void testFilter() {
+        List<User> users = List.of(new User("a", 20), new User("b", 35), new User(null, 40), new User("d", 50));
+        Iterable<Integer> numbers = () -> Stream.iterate(0, i -> i + 1).iterator();
+        Map<String, Object> root = Map.of("users", users, "scores", new long[]{1, 5, 10}, "numbers", numbers);
+        Assert.assertEquals(List.of("b", "d"), ExpressionUtils.getValue(root, "users[?age > 30 && name != null].name"));
+        Assert.assertEquals(Arrays.asList("a", null), ExpressionUtils.getValue(root, "users[?age < 25 || name == null].name"));
+        Assert.assertEquals(List.of("a"), ExpressionUtils.compile("users[?name == 'a'].name").getValue(root));
+        Assert.assertEquals(List.of("b", "d"), ExpressionUtils.stream(root, "users[?!(age <= 30) && @.name].name").collect(Collectors.toList()));
+        Assert.assertEquals(List.of(5L, 10L), ExpressionUtils.getValue(root, "scores[?@ >= 5]"));
+        Assert.assertEquals(4, ExpressionUtils.count(root, "users[?say() == \"Hi\"]"));
+        // 找到第一个满足条件的元素后停止遍历
+        Assert.assertEquals("b", ExpressionUtils.findFirst(root, "users[?age > 30].name"));
+        Assert.assertEquals(11, ExpressionUtils.findFirst(root, "numbers[?@ > 10]"));
+        Assert.assertEquals(11, ExpressionUtils.indexOf(root, "numbers[?@ > 10]"));
+        Assert.assertEquals(3, ExpressionUtils.count(root, "users[?age > 30]"));
+        Assert.assertEquals(1, ExpressionUtils.indexOf(root, "users[?age > 30]"));
+        Assert.assertEquals(-1, ExpressionUtils.indexOf(root, "users[?age > 100]"));
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.indexOf(root, "users[?age > 30].name"));
+        // 单独编译的过滤谓词
+        Predicate<Object> predicate = FilterPredicate.compile("age >= 40 && name != null");
+        Assert.assertEquals(1, users.stream().filter(predicate).count());
+        Assert.assertThrows(ExpressionParseException.class, () -> Expression.parse("users[?age >]"));
+        Assert.assertThrows(ExpressionParseException.class, () -> Expression.parse("users[?name == 'a]"));
+        // 对象数组
+        Map<String, Object> arrays = Map.of("names", new String[]{"x", "y", "z", "y"});
+        Assert.assertEquals(List.of("y", "y"), ExpressionUtils.getValue(arrays, "names[?@ == 'y']"));
+        Assert.assertEquals(4, ExpressionUtils.count(arrays, "names[*]"));
+        Assert.assertEquals(2, ExpressionUtils.count(arrays, "names[?@ == 'y']"));
+        Assert.assertEquals("y", ExpressionUtils.findFirst(arrays, "names[?@ == 'y']"));
+        Assert.assertEquals(1, ExpressionUtils.indexOf(arrays, "names[?@ == 'y']"));
+        Assert.assertEquals(-1, ExpressionUtils.indexOf(arrays, "names[?@ == 'w']"));
+        // 过滤之后以索引结尾的路径
+        Map<String, Object> items = Map.of("items", List.of(Map.of("x", true, "y", List.of(1, 2)), Map.of("x", false, "y", List.of(3))));
+        Assert.assertTrue(Expression.parse("items[?x].y[0]").hasWildcard());
+        Assert.assertEquals(List.of(1), ExpressionUtils.getValue(items, "items[?x].y[0]"));
+        Assert.assertEquals(List.of(1), ExpressionUtils.compile("items[?x].y[0]").getValue(items));
+        Assert.assertEquals(1, ExpressionUtils.count(items, "items[?x].y[0]"));
+        Assert.assertEquals(3, ExpressionUtils.findFirst(items, "items[?!x].y[0]"));
+    }
+
+    @Test
+    public void testEvaluationPlan() {
+        Report report = new Report();
+        // 接收者链 tally 与参数 tally.value 共享 tally，两个参数 tally.value 只读取一次
+        Assert.assertEquals("7/7", ExpressionUtils.getValue(report, "join(tally.value, tally.value)"));
+        Assert.assertEquals(1, report.getTally().reads);
+        Assert.assertEquals("7:7/7", ExpressionUtils.getValue(report, "tally.describe(join(tally.value, tally.value))"));
+        // describe方法自身读取一次
+        Assert.assertEquals(3, report.getTally().reads);
+        CompiledExpression compiled = ExpressionUtils.compile("join(tally.value, tally.value)");
+        Assert.assertEquals("7/7", compiled.getValue(report));
+        Assert.assertEquals(4, report.getTally().reads);
+        // 每次求值重新计算
+        Assert.assertEquals("7/7", compiled.getValue(report));
+        Assert.assertEquals(5, report.getTally().reads);
+        Assert.assertEquals(Optional.of("7/7"), ExpressionUtils.tryGetValue(report, "join(tally.value, tally.value)"));
+        Assert.assertEquals(6, report.getTally().reads);
+        // 方法每次出现都单独调用
+        Assert.assertEquals("1/2", ExpressionUtils.getValue(report, "join(tally.next(), tally.next())"));
+        Assert.assertEquals("3/4", ExpressionUtils.compile("join(tally.next(), tally.next())").getValue(report));
+        Assert.assertEquals("5:6", ExpressionUtils.getValue(report, "tally.next().toString().concat(tally.separator(tally.next()))"));
+        // 接收者为null时参数不求值
+        report.setTally(null);
+        Assert.assertNull(ExpressionUtils.getValue(report, "tally.describe(tally.value)"));
+    }
+
+    @Test
+    public void testSlice() {
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3, 4, 5));
+        Map<String, Object> root = new HashMap<>();
+        root.put("list", list);
+        root.put("linked", new LinkedList<>(list));
+        root.put("deque", new ArrayDeque<>(list));
+        root.put("scores", new int[]{10, 20, 30});
+        root.put("users", List.of(new User("a", 20), new User("b", 35), new User("c", 40)));
+        // 负索引从末尾计算
+        Assert.assertEquals(5, ExpressionUtils.getValue(root, "list[-1]"));
+        Assert.assertEquals(4, ExpressionUtils.getValue(root, "linked[-2]"));
+        Assert.assertEquals(5, ExpressionUtils.getValue(root, "deque[-1]"));
+        Assert.assertEquals(2, ExpressionUtils.getValue(root, "deque[1]"));
+        Assert.assertEquals(30, ExpressionUtils.getInt(root, "scores[-1]"));
+        Assert.assertEquals(20, ExpressionUtils.compile("scores[-2]").getValue(root));
+        Assert.assertEquals("c", ExpressionUtils.getValue(root, "users[-1].name"));
+        // 切片是不复制元素的视图
+        List<?> slice = (List<?>) ExpressionUtils.getValue(root, "list[1:3]");
+        Assert.assertEquals(List.of(2, 3), slice);
+        list.set(1, 20);
+        Assert.assertEquals(List.of(20, 3), slice);
+        Assert.assertEquals(List.of(4, 5), ExpressionUtils.getValue(root, "list[-2:]"));
+        Assert.assertEquals(List.of(1, 20), ExpressionUtils.compile("list[:2]").getValue(root));
+        Assert.assertEquals(List.of(4, 5), ExpressionUtils.getValue(root, "deque[3:]"));
+        Assert.assertEquals(List.of(), ExpressionUtils.getValue(root, "list[4:2]"));
+        Assert.assertEquals(List.of(20, 30), ExpressionUtils.getValue(root, "scores[1:]"));
+        Assert.assertEquals(List.of("b", "c"), ExpressionUtils.getValue(root, "users[1:][*].name"));
+        Assert.assertEquals(35, ExpressionUtils.getInt(root, "users[1:][0].age"));
+        // 写入负索引和切片中的元素作用于原容器
+        ExpressionUtils.setValue(root, "list[-1]", 50);
+        Assert.assertEquals(50, (int) list.get(4));
+        ExpressionUtils.setValue(root, "scores[1:][0]", 21);
+        Assert.assertEquals(21, ((int[]) root.get("scores"))[1]);
+        Assert.assertThrows(ExpressionException.class, () -> ExpressionUtils.setValue(root, "list[1:3]", List.of()));
+        Assert.assertThrows(ExpressionParseException.class, () -> Expression.parse("list[-2147483647]"));
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        Loader loader = new Loader();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            // 两个参数都等待对方到达屏障，只有并发求值才能完成
+            CompletableFuture<Object> future = ExpressionUtils.getValueAsync(loader, Expression.parse("pair(load(a), load(b))"), executor);
+            Assert.assertEquals("a-b", future.get(5, TimeUnit.SECONDS));
+            // 方法每次出现都单独调用
+            Assert.assertEquals("a-a", ExpressionUtils.compile("pair(load(a), load(a))").evaluateAsync(loader, executor).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(4, loader.loads.get());
+            // 方法返回的CompletionStage被组合
+            Assert.assertEquals("a", ExpressionUtils.getValueAsync(loader, Expression.parse("future(a)"), executor).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("a", ExpressionUtils.getValueAsync(loader, Expression.parse("future(a).toString()"), executor).get(5, TimeUnit.SECONDS));
+            // 不含方法节点时同步完成
+            Assert.assertTrue(ExpressionUtils.getValueAsync(loader, "loads").isDone());
+            // 默认执行器
+            Assert.assertEquals("a", ExpressionUtils.getValueAsync(loader, "future(a)").get(5, TimeUnit.SECONDS));
+            CompletableFuture<Object> failed = ExpressionUtils.getValueAsync(loader, Expression.parse("fail()"), executor);
+            ExecutionException e = Assert.assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            Assert.assertTrue(e.getCause() instanceof ExpressionException);
+            // 接收者为null时参数不求值，与同步求值一致
+            Assert.assertNull(ExpressionUtils.getValueAsync(loader, Expression.parse("nothing.concat(fail())"), executor).get(5, TimeUnit.SECONDS));
+            Assert.assertNull(ExpressionUtils.getValue(loader, "nothing.concat(fail())"));
+            // 包含通配的参数整体求值
+            Assert.assertEquals("[a, b]-a", ExpressionUtils.getValueAsync(loader, Expression.parse("pair(keys[*].toString(), load(a))"), executor).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Data
+    public static class Order {
+
+        private final String id = "o";
+
+        private Customer customer;
+
+        private long[] scores;
+
+        private List<Object> tags;
+
+        private String[] names;
+    }
+
+    @Data
+    public static class Customer {
+
+        private String name;
+
+        private int age;
+
+        public String getLabel() {
+            return name + "(" + age + ")";
+        }
+    }
+
+    /**
+     * 树模型节点，不是Map也没有字段对应属性
+     */
+    public static class TreeNode {
+
+        private final Map<String, Object> children = new HashMap<>();
+
+        public Object get(String name) {
+            return children.get(name);
+        }
+
+        public TreeNode put(String name, Object value) {
+            children.put(name, value);
+            return this;
+        }
+    }
+
+    @Data
+    public static class Point {
+
+        private int x;
+
+        private int y;
+    }
+
+    /**
+     * Point的属性访问器表，sum没有对应的字段
+     */
+    public static class PointAccessors implements PropertyAccessorTable {
+
+        @Override
+        public Class<?> getType() {
+            return Point.class;
+        }
+
+        @Override
+        public void registerAccessors(Registry registry) {
+            registry.registerInt("x", o -> ((Point) o).getX(), (o, v) -> ((Point) o).setX(v));
+            registry.register("sum", int.class, o -> ((Point) o).getX() + ((Point) o).getY(), null);
+        }
+    }
+
+    @Data
+    public static final class Holder {
+
+        private Map<String, List<User>> teams;
+
+        private Box<User> box;
+    }
+
+    @Data
+    public static class Box<T> {
+
+        private T value;
+    }
+
+    @Data
+    public static class Report {
+
+        private Tally tally = new Tally();
+
+        public String join(Object a, Object b) {
+            return a + "/" + b;
+        }
+    }
+
+    /**
+     * 统计属性读取次数
+     */
+    public static class Tally {
+
+        private int reads;
+
+        private int calls;
+
+        public int getValue() {
+            reads++;
+            return 7;
+        }
+
+        public String describe(Object value) {
+            return getValue() + ":" + value;
+        }
+
+        public int next() {
+            return ++calls;
+        }
+
+        public String separator(Object value) {
+            return ":" + value;
+        }
+
+        public int overflow() {
+            throw new StackOverflowError();
+        }
+
+        public int getDepth() {
+            throw new StackOverflowError();
+        }
+    }
+
+    /**
+     * 阻塞的延迟加载
+     */
+    public static class Loader {
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        public AtomicInteger getLoads() {
+            return loads;
+        }
+
+        public String getA() {
+            return "a";
+        }
+
+        public String getB() {
+            return "b";
+        }
+
+        public String getNothing() {
+            return null;
+        }
+
+        public List<String> getKeys() {
+            return List.of("a", "b");
+        }
+
+        public String load(String key) throws Exception {
+            if (loads.incrementAndGet() <= 2) {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            return key;
+        }
+
+        public String pair(Object a, Object b) {
+            return a + "-" + b;
+        }
+
+        public CompletableFuture<String> future(String value) {
+            return CompletableFuture.supplyAsync(() -> value);
+        }
+
+        public Object fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+
+    public static class Member {
+
+        private final String nickname;
+
+        private final boolean enabled;
+
+        public Member(String nickname, boolean enabled) {
+            this.nickname = nickname;
+            this.enabled = enabled;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public String greet(String prefix, long times) {
+            StringBuilder sb = new StringBuilder();
+            for (long i = 0; i < times; i++) {
+                sb.append(prefix).append(',');
+            }
+            return sb.append(nickname).toString();
+        }
+    }
 }
@@ -14,4 +14,8 @@ public class User {
     public String say() {
         return "Hi";
     }
+
+    String whisper() {
+        return "hi";
+    }
 }